@@ -1,25 +1,36 @@
 package enigma;
 
+import java.util.Arrays;
+
 /** An alphabet of encodable characters.  Provides a mapping from characters
- *  to and from indices into the alphabet.
+ *  to and from indices into the alphabet.  The characters may be any
+ *  Unicode code points, including supplementary ones (written in Strings
+ *  as surrogate pairs); the char-based methods apply to alphabets whose
+ *  characters are all in the Basic Multilingual Plane.
  *  @author Nithish Rajan
  */
 class Alphabet {
 
-    /** A new alphabet containing CHARS. The K-th character has index
-     *  K (numbering from 0). No character may be duplicated. */
+    /** A new alphabet containing the code points of CHARS. The K-th code
+     *  point has index K (numbering from 0). No code point may be
+     *  duplicated. */
     Alphabet(String chars) {
         _char = chars;
-        if (_char.length() == 0) {
+        _codePoints = chars.codePoints().toArray();
+        if (_codePoints.length == 0) {
             throw EnigmaException.error("Empty Alphabet Inputted");
         }
-        for (int x = 0; x < _char.length(); x++) {
-            for (int y = x + 1; y < _char.length(); y++) {
-                if (_char.charAt(x) == _char.charAt(y)) {
-                    throw EnigmaException.error("Duplicate Detected");
-                }
-            }
+        int min = Character.MAX_CODE_POINT, max = Character.MIN_CODE_POINT;
+        for (int cp : _codePoints) {
+            min = Math.min(min, cp);
+            max = Math.max(max, cp);
         }
+        if (max - min < Math.max(DENSE_LIMIT, DENSE_FACTOR * size())) {
+            buildDense(min, max);
+        } else {
+            buildSparse();
+        }
+        _supplementary = _codePoints.length != chars.length();
     }
 
     /** A default alphabet of all upper-case characters. */
@@ -27,26 +38,71 @@ class Alphabet {
         this("ABCDEFGHIJKLMNOPQRSTUVWXYZ");
     }
 
+    /** Return the alphabet of the BYTE_COUNT byte values, in which the
+     *  character with code B has index B. */
+    static Alphabet bytes() {
+        char[] chars = new char[BYTE_COUNT];
+        for (int b = 0; b < BYTE_COUNT; b += 1) {
+            chars[b] = (char) b;
+        }
+        return new Alphabet(new String(chars));
+    }
+
+    /** Return true iff I am an alphabet of bytes, as made by bytes(), so
+     *  that the index of each byte value is the value itself. */
+    boolean isBytes() {
+        if (size() != BYTE_COUNT) {
+            return false;
+        }
+        for (int b = 0; b < BYTE_COUNT; b += 1) {
+            if (_codePoints[b] != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff some of my characters are supplementary code
+     *  points, which take two chars each. */
+    boolean hasSupplementary() {
+        return _supplementary;
+    }
+
+    /** Return my characters, in order, as a String. */
+    String chars() {
+        return _char;
+    }
+
     /** Returns the size of the alphabet. */
     int size() {
-        return _char.length();
+        return _codePoints.length;
     }
 
     /** Returns true if CH is in this alphabet. */
     boolean contains(char ch) {
-        for (int x = 0; x < size(); x++) {
-            if (_char.charAt(x) == ch) {
-                return true;
-            }
-        }
-        return false;
+        return indexOf(ch) >= 0;
+    }
+
+    /** Returns true if code point CP is in this alphabet. */
+    boolean contains(int cp) {
+        return indexOf(cp) >= 0;
     }
 
     /** Returns character number INDEX in the alphabet, where
      *  0 <= INDEX < size(). */
     char toChar(int index) {
+        int cp = toCodePoint(index);
+        if (cp > Character.MAX_VALUE) {
+            throw EnigmaException.error("Character is not a single char");
+        }
+        return (char) cp;
+    }
+
+    /** Returns the code point of character number INDEX in the alphabet,
+     *  where 0 <= INDEX < size(). */
+    int toCodePoint(int index) {
         try {
-            return _char.charAt(index);
+            return _codePoints[index];
         } catch (IndexOutOfBoundsException e) {
             throw EnigmaException.error("Index is too large for the alphabet");
         }
@@ -55,14 +111,108 @@ class Alphabet {
     /** Returns the index of character CH which must be in
      *  the alphabet. This is the inverse of toChar(). */
     int toInt(char ch) {
-        if (contains(ch)) {
-            return _char.indexOf(ch);
-        } else {
+        return toInt((int) ch);
+    }
+
+    /** Returns the index of code point CP which must be in the alphabet.
+     *  This is the inverse of toCodePoint(). */
+    int toInt(int cp) {
+        int index = indexOf(cp);
+        if (index < 0) {
             throw EnigmaException.error("Character not in Alphabet.");
         }
+        return index;
     }
 
+    /** Returns the index of CP, or -1 if it is not in the alphabet. */
+    int indexOf(int cp) {
+        if (_dense != null) {
+            int k = cp - _min;
+            if (k < 0 || k >= _dense.length) {
+                return -1;
+            }
+            return _dense[k];
+        }
+        int mask = _keys.length - 1;
+        for (int h = hash(cp) & mask; _values[h] >= 0; h = (h + 1) & mask) {
+            if (_keys[h] == cp) {
+                return _values[h];
+            }
+        }
+        return -1;
+    }
+
+    /** Index the alphabet with a table covering MIN..MAX. */
+    private void buildDense(int min, int max) {
+        _min = min;
+        _dense = new int[max - min + 1];
+        Arrays.fill(_dense, -1);
+        for (int x = 0; x < size(); x++) {
+            int k = _codePoints[x] - min;
+            if (_dense[k] >= 0) {
+                throw EnigmaException.error("Duplicate Detected");
+            }
+            _dense[k] = x;
+        }
+    }
+
+    /** Index the alphabet with an open-addressing table, for alphabets
+     *  whose characters are spread too widely for buildDense. */
+    private void buildSparse() {
+        int capacity = Integer.highestOneBit(size() * 2 - 1) << 1;
+        int mask = capacity - 1;
+        _keys = new int[capacity];
+        _values = new int[capacity];
+        Arrays.fill(_values, -1);
+        for (int x = 0; x < size(); x++) {
+            int cp = _codePoints[x];
+            int h = hash(cp) & mask;
+            while (_values[h] >= 0) {
+                if (_keys[h] == cp) {
+                    throw EnigmaException.error("Duplicate Detected");
+                }
+                h = (h + 1) & mask;
+            }
+            _keys[h] = cp;
+            _values[h] = x;
+        }
+    }
+
+    /** Return a well-mixed hash of CP. */
+    private static int hash(int cp) {
+        int h = cp * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    /** Number of byte values. */
+    static final int BYTE_COUNT = 256;
+
+    /** Largest character span always indexed by a dense table. */
+    private static final int DENSE_LIMIT = 1024;
+
+    /** Larger spans are indexed by a dense table if they are no more than
+     *  this many times the size of the alphabet. */
+    private static final int DENSE_FACTOR = 4;
 
     /** Characters of the alphabet. */
     private String _char;
+
+    /** Code point of each character of the alphabet, by index. */
+    private final int[] _codePoints;
+
+    /** True iff _codePoints holds supplementary code points. */
+    private final boolean _supplementary;
+
+    /** Smallest code point in the alphabet, when _dense is used. */
+    private int _min;
+
+    /** Index of each code point CP at _dense[CP - _min], or -1. */
+    private int[] _dense;
+
+    /** Keys of the open-addressing index, when _dense is not used. */
+    private int[] _keys;
+
+    /** Index of the code point in the same slot of _keys, or -1 for an
+     *  empty slot. */
+    private int[] _values;
 }
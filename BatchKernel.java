@@ -0,0 +1,75 @@
+package enigma;
+
+import java.lang.reflect.Constructor;
+
+/** The inner loop of a MachineBatch: the pass of the signals of a block
+ *  of lanes through the rotors in one slot.  Every MachineBatch uses
+ *  SCALAR unless the vector kernel, VectorKernel in directory vector, has
+ *  been compiled (by "make vector") and the jdk.incubator.vector module
+ *  is present at run time, in which case it uses a VectorKernel, which
+ *  gathers the signals of a whole vector of lanes from the rotor tables
+ *  at once.  Both give identical results.
+ *  @author Nithish Rajan
+ */
+interface BatchKernel {
+
+    /** A kernel that handles one lane at a time. */
+    BatchKernel SCALAR = new BatchKernel() {
+        @Override
+        public void pass(int[] tables, int[] posns, int[] rings,
+                         int[] bases, int size, int[] signal, int lo,
+                         int hi) {
+            for (int l = lo; l < hi; l += 1) {
+                int d = posns[l] - rings[l];
+                if (d < 0) {
+                    d += size;
+                }
+                signal[l - lo] = tables[bases[l] + d * size + signal[l - lo]];
+            }
+        }
+    };
+
+    /** Return a kernel for the use of one MachineBatch: a new
+     *  VectorKernel if it can be loaded, and otherwise SCALAR. */
+    static BatchKernel create() {
+        if (Loader.CONSTRUCTOR == null) {
+            return SCALAR;
+        }
+        try {
+            return Loader.CONSTRUCTOR.newInstance();
+        } catch (ReflectiveOperationException excp) {
+            return SCALAR;
+        }
+    }
+
+    /** Pass the signal of each lane L, for L in LO .. HI-1, held in
+     *  SIGNAL[L - LO], through the rotor in one slot.  The rotor of lane L
+     *  has setting POSNS[L] and ring setting RINGS[L], and its table in
+     *  TABLES begins at BASES[L] and holds at D * SIZE + P the image of P
+     *  when its setting less its ring setting is D. */
+    void pass(int[] tables, int[] posns, int[] rings, int[] bases, int size,
+              int[] signal, int lo, int hi);
+
+    /** The vector kernel, looked up once. */
+    final class Loader {
+
+        /** Constructor of VectorKernel, or null if it cannot be
+         *  loaded. */
+        static final Constructor<? extends BatchKernel> CONSTRUCTOR =
+            lookUp();
+
+        /** Return the constructor of VectorKernel, or null if it was not
+         *  compiled or the Vector API is missing. */
+        private static Constructor<? extends BatchKernel> lookUp() {
+            try {
+                Constructor<? extends BatchKernel> result =
+                    Class.forName("enigma.VectorKernel")
+                    .asSubclass(BatchKernel.class).getDeclaredConstructor();
+                result.newInstance();
+                return result;
+            } catch (ReflectiveOperationException | LinkageError excp) {
+                return null;
+            }
+        }
+    }
+}
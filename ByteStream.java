@@ -0,0 +1,100 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static enigma.EnigmaException.*;
+
+/** Raw bytes passed through a Machine whose alphabet is Alphabet.bytes(),
+ *  from one channel to another, with no decoding, line structure or
+ *  grouping.  The bytes are converted in place in a single buffer as
+ *  they arrive.
+ *  @author Nithish Rajan
+ */
+class ByteStream {
+
+    /** A stream converting the bytes of IN with MACHINE and writing them
+     *  to OUT. */
+    ByteStream(Machine machine, ReadableByteChannel in,
+               WritableByteChannel out) {
+        _machine = machine;
+        _in = in;
+        _out = out;
+        _buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /** Return a channel reading the file named NAME. */
+    static ReadableByteChannel openInput(String name) {
+        try {
+            return FileChannel.open(Paths.get(name), StandardOpenOption.READ);
+        } catch (IOException | RuntimeException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return a channel reading IN. */
+    static ReadableByteChannel openInput(InputStream in) {
+        return Channels.newChannel(in);
+    }
+
+    /** Return a channel writing the file named NAME. */
+    static WritableByteChannel openOutput(String name) {
+        try {
+            return FileChannel.open(Paths.get(name), StandardOpenOption.WRITE,
+                                    StandardOpenOption.CREATE,
+                                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException | RuntimeException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return a channel writing OUT. */
+    static WritableByteChannel openOutput(OutputStream out) {
+        return Channels.newChannel(out);
+    }
+
+    /** Convert and write every byte of my input, returning the number of
+     *  bytes converted. */
+    long convert() {
+        long total = 0;
+        try {
+            while (_in.read(_buffer) >= 0) {
+                _buffer.flip();
+                _machine.convert(_buffer.array(), 0, _buffer.limit(),
+                                 _buffer.array(), 0);
+                total += _buffer.limit();
+                while (_buffer.hasRemaining()) {
+                    _out.write(_buffer);
+                }
+                _buffer.clear();
+            }
+        } catch (IOException excp) {
+            throw error("could not convert bytes");
+        }
+        return total;
+    }
+
+    /** Size of my buffer. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Converts my bytes. */
+    private final Machine _machine;
+
+    /** Source of bytes. */
+    private final ReadableByteChannel _in;
+
+    /** Destination of converted bytes. */
+    private final WritableByteChannel _out;
+
+    /** Holds bytes between reading and writing them. */
+    private final ByteBuffer _buffer;
+}
@@ -0,0 +1,154 @@
+package enigma;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.zip.CRC32C;
+
+/** Compiled configurations.  The compiled form of a configuration file
+ *  NAME is kept in NAME.compiled.  It holds the alphabet, the numbers of
+ *  slots and pawls, and each rotor's kind, name, notches, and permutation
+ *  table, so that loading it rebuilds the Configuration without parsing
+ *  anything.  Its header records a hash of the text of NAME (and of the
+ *  charset used to read it), and a compiled file whose hash does not
+ *  match is ignored.
+ *  @author Nithish Rajan
+ */
+class CompiledConfig {
+
+    /** Return the Configuration compiled from the text of configuration
+     *  file NAME, or null if there is no compiled file for the current
+     *  text of NAME or it cannot be read. */
+    static Configuration load(String name) {
+        Path compiled = Paths.get(name + SUFFIX);
+        try (FileChannel channel = FileChannel.open(compiled,
+                                                    StandardOpenOption.READ)) {
+            long hash = hash(name);
+            ByteBuffer in =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION
+                || in.getLong() != hash) {
+                return null;
+            }
+            Alphabet alphabet = new Alphabet(getString(in));
+            int numRotors = in.getInt();
+            int pawls = in.getInt();
+            int count = in.getInt();
+            ArrayList<Rotor> rotors = new ArrayList<>(count);
+            for (int k = 0; k < count; k += 1) {
+                byte kind = in.get();
+                String rotorName = getString(in);
+                String notches = getString(in);
+                int[] forward = new int[alphabet.size()];
+                for (int p = 0; p < forward.length; p += 1) {
+                    forward[p] = in.getInt();
+                }
+                Permutation perm = new Permutation(forward, alphabet);
+                if (kind == 'M') {
+                    rotors.add(new MovingRotor(rotorName, perm, notches));
+                } else if (kind == 'R') {
+                    rotors.add(new Reflector(rotorName, perm));
+                } else {
+                    rotors.add(new FixedRotor(rotorName, perm));
+                }
+            }
+            return new Configuration(alphabet, numRotors, pawls, rotors);
+        } catch (IOException | RuntimeException excp) {
+            return null;
+        }
+    }
+
+    /** Write CONFIG, read from configuration file NAME, as the compiled
+     *  form of NAME.  Does nothing if NAME.compiled cannot be written. */
+    static void save(String name, Configuration config) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(hash(name));
+            Alphabet alphabet = config.alphabet();
+            putString(out, alphabet.chars());
+            out.writeInt(config.numRotors());
+            out.writeInt(config.numPawls());
+            out.writeInt(config.rotors().size());
+            for (Rotor rotor : config.rotors()) {
+                if (rotor.rotates()) {
+                    out.writeByte('M');
+                } else if (rotor.reflecting()) {
+                    out.writeByte('R');
+                } else {
+                    out.writeByte('N');
+                }
+                putString(out, rotor.name());
+                putString(out, rotor.notches());
+                for (int p = 0; p < alphabet.size(); p += 1) {
+                    out.writeInt(rotor.permutation().permute(p));
+                }
+            }
+            out.flush();
+            Path target = Paths.get(name + SUFFIX);
+            Path dir = target.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, ".enigma", SUFFIX);
+            try {
+                Files.write(temp, bytes.toByteArray());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException | RuntimeException excp) {
+            return;
+        }
+    }
+
+    /** Return a hash of the contents of file NAME and of the default
+     *  charset's name. */
+    private static long hash(String name) throws IOException {
+        byte[] text = Files.readAllBytes(Paths.get(name));
+        CRC32C crc = new CRC32C();
+        crc.update(text);
+        crc.update(Charset.defaultCharset().name()
+                   .getBytes(Charset.forName("UTF-8")));
+        return ((long) text.length << Integer.SIZE) | crc.getValue();
+    }
+
+    /** Write S to OUT as its length followed by its characters. */
+    private static void putString(DataOutputStream out, String s)
+        throws IOException {
+        out.writeInt(s.length());
+        out.writeChars(s);
+    }
+
+    /** Return the string written by putString at the position of IN. */
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining() / 2) {
+            throw new IllegalStateException("bad compiled string");
+        }
+        char[] chars = new char[length];
+        in.asCharBuffer().get(chars);
+        in.position(in.position() + 2 * chars.length);
+        return new String(chars);
+    }
+
+    /** Suffix of the name of a compiled configuration file. */
+    static final String SUFFIX = ".compiled";
+
+    /** First word of a compiled configuration file: "ENGC". */
+    private static final int MAGIC = 0x454E4743;
+
+    /** Version of the compiled format. */
+    private static final int VERSION = 1;
+}
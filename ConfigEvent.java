@@ -0,0 +1,49 @@
+package enigma;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A JDK Flight Recorder event for reading a configuration, from its
+ *  compiled form or by parsing the configuration file.  Like the other
+ *  enigma events, it costs nothing unless a recording enables it (as
+ *  enigma.jfc does).
+ *  @author Nithish Rajan
+ */
+@Name("enigma.ConfigLoad")
+@Label("Configuration Load")
+@Category("Enigma")
+@Description("Reading of a configuration file or its compiled form")
+class ConfigEvent extends jdk.jfr.Event {
+
+    /** Fill in my fields for CONFIG, read from the file named NAME, or
+     *  from its compiled form if COMPILED. */
+    void set(String name, boolean compiled, Configuration config) {
+        this.name = name;
+        this.compiled = compiled;
+        alphabetSize = config.alphabet().size();
+        slots = config.numRotors();
+        rotors = config.rotors().size();
+    }
+
+    /** Name of the configuration file. */
+    @Label("Configuration File")
+    String name;
+
+    /** True iff the configuration was read from its compiled form. */
+    @Label("Compiled")
+    boolean compiled;
+
+    /** Number of characters in the alphabet. */
+    @Label("Alphabet Size")
+    int alphabetSize;
+
+    /** Number of rotor slots. */
+    @Label("Slots")
+    int slots;
+
+    /** Number of rotors available. */
+    @Label("Rotors")
+    int rotors;
+}
@@ -0,0 +1,214 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/** The fixed description of an Enigma machine: its alphabet, its numbers
+ *  of rotor slots and pawls, and the rotors available to it.  A
+ *  Configuration never changes once built, so any number of Machines,
+ *  on any number of threads, may share one.
+ *
+ *  The available rotors are numbered 0 .. rotors().size() - 1 in order.
+ *  A hash table on their names, ignoring case, finds a rotor's number
+ *  without building any strings, and the kinds of rotor each slot
+ *  accepts and each rotor's notch table are worked out once, here, for
+ *  every Machine using this Configuration.
+ *  @author Nithish Rajan
+ */
+class Configuration {
+
+    /** A configuration with alphabet ALPHA, 1 < NUMROTORS rotor slots,
+     *  and 0 < PAWLS <= NUMROTORS pawls.  ALLROTORS contains all the
+     *  available rotors. */
+    Configuration(Alphabet alpha, int numRotors, int pawls,
+                  Collection<Rotor> allRotors) {
+        if (numRotors <= 1) {
+            throw EnigmaException.error("Machine lacks enough rotor slots.");
+        }
+        if (pawls > numRotors || pawls <= 0) {
+            throw EnigmaException.error("Machine has illegal number of pawls.");
+        }
+        _alphabet = alpha;
+        _numRotors = numRotors;
+        _pawls = pawls;
+        _rotors = Collections.unmodifiableList(new ArrayList<>(allRotors));
+        int count = _rotors.size();
+        _names = new String[count];
+        _kinds = new int[count];
+        _notchAt = new boolean[count][];
+        int tableSize = 2;
+        while (tableSize < 2 * count) {
+            tableSize *= 2;
+        }
+        _table = new int[tableSize];
+        for (int id = 0; id < count; id += 1) {
+            Rotor rotor = _rotors.get(id);
+            _names[id] = rotor.name();
+            if (id(_names[id]) < 0) {
+                int h = hash(_names[id]);
+                while (_table[h] != 0) {
+                    h = (h + 1) & (tableSize - 1);
+                }
+                _table[h] = id + 1;
+            }
+            if (rotor.rotates()) {
+                _kinds[id] = MOVING;
+            } else if (rotor.reflecting()) {
+                _kinds[id] = FIXED | REFLECTOR;
+            } else {
+                _kinds[id] = FIXED;
+            }
+            _notchAt[id] = new boolean[alpha.size()];
+            String notches = rotor.notches();
+            for (int x = 0; x < notches.length(); ) {
+                int notch = notches.codePointAt(x);
+                if (alpha.contains(notch)) {
+                    _notchAt[id][alpha.toInt(notch)] = true;
+                }
+                x += Character.charCount(notch);
+            }
+        }
+        _accepts = new int[numRotors];
+        int fixedSlots = numRotors - pawls;
+        for (int slot = 0; slot < numRotors; slot += 1) {
+            if (slot >= 1 && slot < fixedSlots - 1) {
+                _accepts[slot] = FIXED;
+            } else if (slot >= fixedSlots) {
+                _accepts[slot] = MOVING;
+            } else {
+                _accepts[slot] = FIXED | MOVING;
+            }
+        }
+    }
+
+    /** Return my alphabet. */
+    Alphabet alphabet() {
+        return _alphabet;
+    }
+
+    /** Return the number of rotor slots. */
+    int numRotors() {
+        return _numRotors;
+    }
+
+    /** Return the number of pawls. */
+    int numPawls() {
+        return _pawls;
+    }
+
+    /** Return all available rotors. */
+    List<Rotor> rotors() {
+        return _rotors;
+    }
+
+    /** Return the available rotor named NAME, ignoring case, or null if
+     *  there is none. */
+    Rotor rotor(String name) {
+        int id = id(name);
+        return id < 0 ? null : _rotors.get(id);
+    }
+
+    /** Return the available rotor numbered ID. */
+    Rotor rotor(int id) {
+        return _rotors.get(id);
+    }
+
+    /** Return the number of the first available rotor named NAME, ignoring
+     *  case, or -1 if there is none. */
+    int id(CharSequence name) {
+        int h = hash(name);
+        while (_table[h] != 0) {
+            int id = _table[h] - 1;
+            if (sameName(name, _names[id])) {
+                return id;
+            }
+            h = (h + 1) & (_table.length - 1);
+        }
+        return -1;
+    }
+
+    /** Return true iff rotor ID is a reflector. */
+    boolean reflecting(int id) {
+        return (_kinds[id] & REFLECTOR) != 0;
+    }
+
+    /** Return true iff rotor ID may go in slot SLOT > 0: the fast
+     *  numPawls() slots take moving rotors, and the slots to the left of
+     *  them, but for the one next to the moving rotors, take rotors that
+     *  do not move.  (A reflector in slot 0 is checked separately.) */
+    boolean fits(int id, int slot) {
+        return (_kinds[id] & _accepts[slot]) != 0;
+    }
+
+    /** Return the notch table of rotor ID: its elements are true at the
+     *  alphabet positions of its notches.  The table is shared and must
+     *  not be modified. */
+    boolean[] notchAt(int id) {
+        return _notchAt[id];
+    }
+
+    /** Return the position of NAME in _table, where the search for it
+     *  begins. */
+    private int hash(CharSequence name) {
+        int h = 0;
+        for (int k = 0; k < name.length(); k += 1) {
+            h = 31 * h + Character.toUpperCase(name.charAt(k));
+        }
+        h ^= h >>> 16;
+        return h & (_table.length - 1);
+    }
+
+    /** Return true iff NAME and OTHER are equal, ignoring case. */
+    private static boolean sameName(CharSequence name, String other) {
+        if (name.length() != other.length()) {
+            return false;
+        }
+        for (int k = 0; k < name.length(); k += 1) {
+            if (Character.toUpperCase(name.charAt(k))
+                != Character.toUpperCase(other.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Kind of a rotor that does not move. */
+    private static final int FIXED = 1;
+
+    /** Kind of a moving rotor. */
+    private static final int MOVING = 2;
+
+    /** Kind of a reflector, which is also FIXED. */
+    private static final int REFLECTOR = 4;
+
+    /** Common alphabet of my rotors. */
+    private final Alphabet _alphabet;
+
+    /** Number of rotor slots. */
+    private final int _numRotors;
+
+    /** Number of pawls. */
+    private final int _pawls;
+
+    /** All available rotors. */
+    private final List<Rotor> _rotors;
+
+    /** Name of each available rotor, by number. */
+    private final String[] _names;
+
+    /** Kinds (FIXED, MOVING, REFLECTOR) of each available rotor. */
+    private final int[] _kinds;
+
+    /** Kinds of rotor accepted by each slot. */
+    private final int[] _accepts;
+
+    /** Notch table of each available rotor. */
+    private final boolean[][] _notchAt;
+
+    /** Hash table of rotor names: each nonzero entry is 1 + the number of
+     *  a rotor, and a rotor is found by searching forward from the hash
+     *  of its name. */
+    private final int[] _table;
+}
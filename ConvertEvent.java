@@ -0,0 +1,21 @@
+package enigma;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A JDK Flight Recorder event for converting one message line (or, with
+ *  --bytes, a whole input).
+ *  @author Nithish Rajan
+ */
+@Name("enigma.Convert")
+@Label("Message Conversion")
+@Category("Enigma")
+@Description("Conversion of a message line")
+class ConvertEvent extends jdk.jfr.Event {
+
+    /** Number of characters converted. */
+    @Label("Length")
+    long length;
+}
@@ -0,0 +1,54 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the Flight Recorder events.
+ *  @author Nithish Rajan
+ */
+public class EventTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(20);
+
+    @Test
+    public void testSetUpEvent() throws IOException {
+        Alphabet az = new Alphabet(TestUtils.UPPER_STRING);
+        Configuration config = TestUtils.navalConfiguration(az, 5, 3);
+        Machine mach = new Machine(config);
+        char[] line = "* B Beta III IV I AXLE BCDE (YF) (ZH)".toCharArray();
+        Path file = Files.createTempFile("enigma", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(SetUpEvent.class).withoutThreshold();
+            recording.start();
+            new SettingParser(config, "test").setUp(mach, line, 0,
+                                                    line.length, 3);
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("enigma.SetUp", event.getEventType().getName());
+            assertEquals("test", event.getString("source"));
+            assertEquals(3, event.getInt("line"));
+            assertEquals("B Beta III IV I", event.getString("rotors"));
+            assertEquals("AXLE", event.getString("setting"));
+            assertEquals("BCDE", event.getString("ring"));
+            assertEquals(2, event.getInt("plugs"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
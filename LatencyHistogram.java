@@ -0,0 +1,129 @@
+package enigma;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** A histogram of durations in nanoseconds that any number of threads may
+ *  record into at once without locking.  Durations are counted in
+ *  buckets of SUB_BUCKETS per power of two, so a percentile is reported
+ *  as the upper end of a bucket and is at most 1 / SUB_BUCKETS too
+ *  large; durations below SUB_BUCKETS have buckets of their own.
+ *  @author Nithish Rajan
+ */
+class LatencyHistogram {
+
+    /** An empty histogram. */
+    LatencyHistogram() {
+        _counts = new AtomicLongArray(BUCKETS);
+        _max = new AtomicLong();
+    }
+
+    /** Count one duration of NANOS nanoseconds (0 if negative). */
+    void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        _counts.incrementAndGet(bucket(nanos));
+        long max = _max.get();
+        while (nanos > max && !_max.compareAndSet(max, nanos)) {
+            max = _max.get();
+        }
+    }
+
+    /** Return the number of durations recorded. */
+    long count() {
+        long result = 0;
+        for (int b = 0; b < BUCKETS; b += 1) {
+            result += _counts.get(b);
+        }
+        return result;
+    }
+
+    /** Return the longest duration recorded, or 0 if there is none. */
+    long max() {
+        return _max.get();
+    }
+
+    /** Return the P-th percentile (0 < P <= 100) of the durations
+     *  recorded, or 0 if there are none.  Durations recorded while this
+     *  runs may or may not be included. */
+    long percentile(double p) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b += 1) {
+            counts[b] = _counts.get(b);
+            total += counts[b];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * p / PERCENT));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b += 1) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(upper(b), max());
+            }
+        }
+        return max();
+    }
+
+    /** Forget everything recorded.  Durations recorded while this runs
+     *  may or may not be forgotten. */
+    void reset() {
+        for (int b = 0; b < BUCKETS; b += 1) {
+            _counts.set(b, 0);
+        }
+        _max.set(0);
+    }
+
+    /** Return a one-line summary of my durations, such as
+     *  "1024 times, 50% 3.1 us, 90% 5.2 us, 99% 17.0 us, max 203.4 us". */
+    String summary() {
+        return String.format("%d times, 50%% %.1f us, 90%% %.1f us, "
+                             + "99%% %.1f us, max %.1f us", count(),
+                             percentile(50) / MICROSECOND,
+                             percentile(90) / MICROSECOND,
+                             percentile(99) / MICROSECOND,
+                             max() / MICROSECOND);
+    }
+
+    /** Return the bucket counting duration NANOS >= 0. */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS * (exp - SUB_BITS + 1) + sub;
+    }
+
+    /** Return the largest duration counted by bucket B. */
+    static long upper(int b) {
+        if (b < SUB_BUCKETS) {
+            return b;
+        }
+        int shift = b / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + b % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /** Log base 2 of SUB_BUCKETS. */
+    private static final int SUB_BITS = 3;
+
+    /** Number of buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Number of buckets, enough for any non-negative long. */
+    private static final int BUCKETS = bucket(Long.MAX_VALUE) + 1;
+
+    /** Hundred percent. */
+    private static final double PERCENT = 100;
+
+    /** Nanoseconds in a microsecond. */
+    private static final double MICROSECOND = 1e3;
+
+    /** Number of durations counted by each bucket. */
+    private final AtomicLongArray _counts;
+
+    /** Longest duration recorded. */
+    private final AtomicLong _max;
+}
@@ -0,0 +1,340 @@
+package enigma;
+
+import java.io.IOException;
+
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/** Splits configuration files and setting lines into whitespace-separated
+ *  tokens in a single pass over their characters, without creating an
+ *  object for each token.  A Lexer always holds the next unread token,
+ *  if any, which the is... methods classify and skip() consumes.  Each
+ *  token's line and column are kept for error messages.
+ *  @author Nithish Rajan
+ */
+class Lexer {
+
+    /** Return a lexer for the contents of the file named NAME. */
+    static Lexer open(String name) {
+        try {
+            String text = new String(Files.readAllBytes(Paths.get(name)),
+                                     Charset.defaultCharset());
+            Lexer result = new Lexer(name);
+            char[] chars = text.toCharArray();
+            result.reset(chars, 0, chars.length, 1);
+            return result;
+        } catch (IOException | RuntimeException excp) {
+            throw EnigmaException.error("could not open %s", name);
+        }
+    }
+
+    /** A lexer, as yet with no input, for text from the source named
+     *  SOURCE. */
+    Lexer(String source) {
+        _source = source;
+        _chars = new char[0];
+    }
+
+    /** Read tokens from CHARS[START .. END-1], which begins at line LINE of
+     *  my source. */
+    void reset(char[] chars, int start, int end, int line) {
+        _chars = chars;
+        _pos = start;
+        _end = end;
+        _line = line;
+        _lineStart = start;
+        advance();
+    }
+
+    /** Return true iff there is a token left. */
+    boolean hasNext() {
+        return _tokenStart < _tokenEnd;
+    }
+
+    /** Consume the current token. */
+    void skip() {
+        advance();
+    }
+
+    /** Return the length of the current token. */
+    int length() {
+        return _tokenEnd - _tokenStart;
+    }
+
+    /** Return character K of the current token. */
+    char charAt(int k) {
+        return _chars[_tokenStart + k];
+    }
+
+    /** Return the current token as a String. */
+    String text() {
+        return new String(_chars, _tokenStart, length());
+    }
+
+    /** Return the current token as a view that remains valid until the
+     *  next call to skip() or reset(). */
+    CharSequence token() {
+        return _token;
+    }
+
+    /** Return true iff the current token is the single character CH. */
+    boolean is(char ch) {
+        return length() == 1 && charAt(0) == ch;
+    }
+
+    /** Return true iff the current token is an optionally signed decimal
+     *  integer that fits in an int. */
+    boolean isInt() {
+        int k = hasSign() ? 1 : 0;
+        if (k == length()) {
+            return false;
+        }
+        long value = 0;
+        for (; k < length(); k += 1) {
+            int digit = charAt(k) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            value = 10 * value + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return false;
+            }
+        }
+        return value <= Integer.MAX_VALUE || charAt(0) == '-';
+    }
+
+    /** Return the value of the current token, which isInt(). */
+    int intValue() {
+        int value = 0;
+        for (int k = hasSign() ? 1 : 0; k < length(); k += 1) {
+            value = 10 * value - (charAt(k) - '0');
+        }
+        return charAt(0) == '-' ? value : -value;
+    }
+
+    /** Return true iff the current token could name an alphabet: it
+     *  consists of Unicode code points other than blanks, parentheses,
+     *  and '*'. */
+    boolean isAlphabet() {
+        if (!hasNext()) {
+            return false;
+        }
+        for (int k = 0; k < length(); k += 1) {
+            char ch = charAt(k);
+            if (ch == '(' || ch == ')' || ch == '*' || ch == ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff the current token begins with '(' and ends with
+     *  ')', as do the cycles of a permutation. */
+    boolean isCycles() {
+        return length() >= 2 && charAt(0) == '('
+            && charAt(length() - 1) == ')';
+    }
+
+    /** Return true iff the current token consists of exactly N letters,
+     *  digits, or underscores. */
+    boolean isWord(int n) {
+        return words(0, length()) == n;
+    }
+
+    /** Return true iff the current token is a plugboard pair: two
+     *  letters, digits, or underscores in parentheses. */
+    boolean isPair() {
+        return length() >= PAIR_LENGTH && charAt(0) == '('
+            && charAt(length() - 1) == ')' && words(1, length() - 1) == 2;
+    }
+
+    /** Return true iff characters START .. END-1 of the current token
+     *  are a non-empty, even number of hexadecimal digits, each pair
+     *  giving one byte. */
+    boolean isHex(int start, int end) {
+        if (start >= end || end > length() || (end - start) % 2 != 0) {
+            return false;
+        }
+        for (int k = start; k < end; k += 1) {
+            if (Character.digit(charAt(k), HEX) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return the bytes written in hexadecimal in characters
+     *  START .. END-1 of the current token, which isHex(START, END), as
+     *  the characters with those codes. */
+    String hexText(int start, int end) {
+        char[] bytes = new char[(end - start) / 2];
+        for (int k = 0; k < bytes.length; k += 1) {
+            int hi = Character.digit(charAt(start + 2 * k), HEX);
+            int lo = Character.digit(charAt(start + 2 * k + 1), HEX);
+            bytes[k] = (char) (hi * HEX + lo);
+        }
+        return new String(bytes);
+    }
+
+    /** Return true iff the current token is a plugboard pair of bytes:
+     *  four hexadecimal digits in parentheses, as in (0a41). */
+    boolean isHexPair() {
+        return length() == HEX_PAIR_LENGTH && charAt(0) == '('
+            && charAt(HEX_PAIR_LENGTH - 1) == ')'
+            && isHex(1, HEX_PAIR_LENGTH - 1);
+    }
+
+    /** Append the current token, which isCycles(), to CYCLES followed by a
+     *  blank, separating adjacent cycles within it by blanks. */
+    void appendCycles(StringBuilder cycles) {
+        cycles.append(charAt(0));
+        for (int k = 1; k < length(); k += 1) {
+            if (charAt(k) == '(' && charAt(k - 1) == ')') {
+                cycles.append(' ');
+            }
+            cycles.append(charAt(k));
+        }
+        cycles.append(' ');
+    }
+
+    /** Return the line number of the current token. */
+    int line() {
+        return _tokenLine;
+    }
+
+    /** Return the column number of the current token. */
+    int column() {
+        return _tokenColumn;
+    }
+
+    /** Return an exception reporting the error MSG at the current token
+     *  (or the end of the input if there is none). */
+    EnigmaException error(String msg) {
+        return error(msg, _tokenLine, _tokenColumn);
+    }
+
+    /** Return an exception reporting the error MSG at column COLUMN of
+     *  line LINE. */
+    EnigmaException error(String msg, int line, int column) {
+        return EnigmaException.error("%s:%d:%d: %s", _source, line, column,
+                                     msg);
+    }
+
+    /** Return true iff the current token starts with a sign. */
+    private boolean hasSign() {
+        return length() > 0 && (charAt(0) == '-' || charAt(0) == '+');
+    }
+
+    /** Return the number of code points in characters START .. END-1 of
+     *  the current token if they are all letters, digits, or underscores,
+     *  and otherwise -1. */
+    private int words(int start, int end) {
+        int count = 0;
+        for (int k = start; k < end; count += 1) {
+            int cp = Character.codePointAt(_token, k);
+            if (!isWordChar(cp)) {
+                return -1;
+            }
+            k += Character.charCount(cp);
+        }
+        return count;
+    }
+
+    /** Return true iff code point CP is a letter, digit, or underscore. */
+    private static boolean isWordChar(int cp) {
+        return cp >= 'a' && cp <= 'z' || cp >= 'A' && cp <= 'Z'
+            || cp >= '0' && cp <= '9' || cp == '_'
+            || cp > ASCII_LIMIT && Character.isLetterOrDigit(cp);
+    }
+
+    /** Find the next token, counting the lines passed on the way. */
+    private void advance() {
+        int k = _pos;
+        while (k < _end && Character.isWhitespace(_chars[k])) {
+            char ch = _chars[k];
+            k += 1;
+            if (ch == '\r' && k < _end && _chars[k] == '\n') {
+                k += 1;
+            } else if (ch != '\n' && ch != '\r' && ch != '\u2028'
+                       && ch != '\u2029') {
+                continue;
+            }
+            _line += 1;
+            _lineStart = k;
+        }
+        _tokenStart = k;
+        _tokenLine = _line;
+        _tokenColumn = k - _lineStart + 1;
+        while (k < _end && !Character.isWhitespace(_chars[k])) {
+            k += 1;
+        }
+        _tokenEnd = _pos = k;
+    }
+
+    /** The current token, as a CharSequence. */
+    private class Token implements CharSequence {
+        @Override
+        public int length() {
+            return Lexer.this.length();
+        }
+
+        @Override
+        public char charAt(int k) {
+            if (k < 0 || k >= length()) {
+                throw new IndexOutOfBoundsException();
+            }
+            return Lexer.this.charAt(k);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text();
+        }
+    }
+
+    /** Largest ASCII character. */
+    private static final int ASCII_LIMIT = 0x7F;
+
+    /** Length of a plugboard pair such as (AB). */
+    private static final int PAIR_LENGTH = 4;
+
+    /** Length of a plugboard pair of bytes such as (0a41). */
+    private static final int HEX_PAIR_LENGTH = 6;
+
+    /** Radix of hexadecimal digits. */
+    private static final int HEX = 16;
+
+    /** Name of my source, for error messages. */
+    private final String _source;
+
+    /** View of the current token. */
+    private final Token _token = new Token();
+
+    /** The characters being split into tokens. */
+    private char[] _chars;
+
+    /** Index in _chars just past the last token read. */
+    private int _pos;
+
+    /** Index in _chars just past the input. */
+    private int _end;
+
+    /** Current line number. */
+    private int _line;
+
+    /** Index in _chars of the start of the current line. */
+    private int _lineStart;
+
+    /** Bounds in _chars of the current token, which is empty if there is
+     *  none. */
+    private int _tokenStart, _tokenEnd;
+
+    /** Line and column of the current token. */
+    private int _tokenLine, _tokenColumn;
+}
@@ -0,0 +1,105 @@
+package enigma;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the Lexer class.
+ *  @author Nithish Rajan
+ */
+public class LexerTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** Return a lexer for TEXT, which starts at line 1 of source "t". */
+    private Lexer lexer(String text) {
+        Lexer lex = new Lexer("t");
+        lex.reset(text.toCharArray(), 0, text.length(), 1);
+        return lex;
+    }
+
+    @Test
+    public void testTokens() {
+        Lexer lex = lexer("  * B\tBeta\r\n\r\n  AXLE (YF) (ZH)(QR)");
+        assertTrue(lex.is('*'));
+        assertEquals(1, lex.line());
+        assertEquals(3, lex.column());
+        lex.skip();
+        assertEquals("B", lex.text());
+        lex.skip();
+        assertEquals("Beta", lex.token().toString());
+        lex.skip();
+        assertEquals(3, lex.line());
+        assertEquals(3, lex.column());
+        assertTrue(lex.isWord(4));
+        assertFalse(lex.isWord(3));
+        lex.skip();
+        assertTrue(lex.isPair());
+        assertTrue(lex.isCycles());
+        lex.skip();
+        assertFalse(lex.isPair());
+        assertTrue(lex.isCycles());
+        StringBuilder cycles = new StringBuilder();
+        lex.appendCycles(cycles);
+        assertEquals("(ZH) (QR) ", cycles.toString());
+        lex.skip();
+        assertFalse(lex.hasNext());
+        assertFalse(lex.isCycles());
+    }
+
+    @Test
+    public void testHex() {
+        Lexer lex = lexer("0aFf M5a01 abc (0a41) (0a4)");
+        assertTrue(lex.isHex(0, lex.length()));
+        assertEquals("\n\u00ff", lex.hexText(0, lex.length()));
+        lex.skip();
+        assertFalse(lex.isHex(0, lex.length()));
+        assertTrue(lex.isHex(1, lex.length()));
+        assertEquals("Z\u0001", lex.hexText(1, lex.length()));
+        lex.skip();
+        assertFalse(lex.isHex(0, lex.length()));
+        lex.skip();
+        assertTrue(lex.isHexPair());
+        assertEquals("\nA", lex.hexText(1, lex.length() - 1));
+        lex.skip();
+        assertFalse(lex.isHexPair());
+        lex.skip();
+        assertFalse(lex.isHex(0, lex.length()));
+    }
+
+    @Test
+    public void testIntegers() {
+        Lexer lex = lexer("5 +3 -7 2147483648 -2147483648 5x -");
+        assertTrue(lex.isInt());
+        assertEquals(5, lex.intValue());
+        lex.skip();
+        assertEquals(3, lex.intValue());
+        lex.skip();
+        assertEquals(-7, lex.intValue());
+        lex.skip();
+        assertFalse(lex.isInt());
+        lex.skip();
+        assertTrue(lex.isInt());
+        assertEquals(Integer.MIN_VALUE, lex.intValue());
+        lex.skip();
+        assertFalse(lex.isInt());
+        lex.skip();
+        assertFalse(lex.isInt());
+        lex.skip();
+        assertFalse(lex.isInt());
+    }
+
+    @Test
+    public void testErrorLocation() {
+        Lexer lex = lexer("A\nB\n  C");
+        lex.skip();
+        lex.skip();
+        assertEquals("t:3:3: bad", lex.error("bad").getMessage());
+        lex.skip();
+        assertFalse(lex.hasNext());
+        assertFalse(lex.isAlphabet());
+    }
+}
@@ -1,12 +1,21 @@
 package enigma;
 
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static enigma.EnigmaException.*;
 
-/** Class that represents a complete enigma machine.
+/** Class that represents a complete enigma machine.  The rotors, alphabet
+ *  and slot counts come from a Configuration that may be shared; the
+ *  settings, ring settings and plugboard belong to this Machine alone, so
+ *  Machines sharing a Configuration may be used concurrently.
  *  @author Nithish Rajan
  */
 class Machine {
@@ -16,36 +25,87 @@ class Machine {
      *  available rotors. */
     Machine(Alphabet alpha, int numRotors, int pawls,
             Collection<Rotor> allRotors) {
-        _alphabet = alpha;
-        _pawls = pawls;
-        if (numRotors <= 1) {
-            throw EnigmaException.error("Machine lacks enough rotor slots.");
-        }
-        _numRotors = numRotors;
-        if (_pawls > numRotors || _pawls <= 0) {
-            throw EnigmaException.error("Machine has illegal number of pawls.");
+        this(new Configuration(alpha, numRotors, pawls, allRotors));
+    }
+
+    /** A new Enigma machine as described by CONFIG. */
+    Machine(Configuration config) {
+        this(config, Tracer.NONE);
+    }
+
+    /** A new Enigma machine as described by CONFIG that reports the path
+     *  of each character it converts to TRACER. */
+    Machine(Configuration config, Tracer tracer) {
+        _config = config;
+        _alphabet = config.alphabet();
+        _bytes = _alphabet.isBytes();
+        _tracer = tracer;
+        _tracing = tracer != Tracer.NONE;
+    }
+
+    /** Return a new machine with my rotors, settings, plugboard and
+     *  position() whose settings can be changed independently of mine.
+     *  Only my settings are copied; everything else is shared. */
+    Machine copy() {
+        Machine result = new Machine(_config, _tracer);
+        result._caching = _caching;
+        result._plugboard = _plugboard;
+        if (_slots != null) {
+            result._rotor = _rotor;
+            result._slots = _slots;
+            result._rotates = _rotates;
+            result._notchAt = _notchAt;
+            result._odometer = _odometer;
+            result._positions = _positions.clone();
+            result._rings = _rings.clone();
+            result._start = _start.clone();
+            result._offset = _offset;
+            if (_composite != null) {
+                result._composite = _composite.clone();
+            }
         }
-        _availablerotorList = new ArrayList<>(allRotors);
+        return result;
+    }
 
+    /** Return my configuration. */
+    Configuration configuration() {
+        return _config;
     }
 
     /** Return the number of rotor slots I have. */
     int numRotors() {
-        return _numRotors;
+        return _config.numRotors();
     }
 
     /** Return the number pawls (and thus rotating rotors) I have. */
     int numPawls() {
-        return _pawls;
+        return _config.numPawls();
     }
 
     /** Return Rotor #K, where Rotor #0 is the reflector, and Rotor
-     *  #(numRotors()-1) is the fast Rotor.  Modifying this Rotor has
-     *  undefined results. */
+     *  #(numRotors()-1) is the fast Rotor.  The Rotor may be shared with
+     *  other machines, and does not record my settings (see setting). */
     Rotor getRotor(int k) {
         return _rotor.get(k);
     }
 
+    /** Return the current setting of Rotor #K. */
+    int setting(int k) {
+        return _positions[k];
+    }
+
+    /** Return the ring setting of Rotor #K. */
+    int ring(int k) {
+        return _rings[k];
+    }
+
+    /** Return the notch table of Rotor #K: element P is true iff it has a
+     *  notch at setting P.  The table is shared and must not be
+     *  changed. */
+    boolean[] notchAt(int k) {
+        return _notchAt[k];
+    }
+
     Alphabet alphabet() {
         return _alphabet;
     }
@@ -59,45 +119,174 @@ class Machine {
      *  available rotors (ROTORS[0] names the reflector).
      *  Initially, all rotors are set at their 0 setting. */
     void insertRotors(String[] rotors) {
-        _rotor = new ArrayList<Rotor>();
-        ArrayList<String> insertList = new ArrayList<String>();
-        for (Rotor X : _availablerotorList) {
-            insertList.add(X.name());
-        }
-        for (String V : rotors) {
-            int index = insertList.indexOf(V);
-            Rotor selected = _availablerotorList.get(index);
-            if (selected == null) {
+        int[] ids = new int[rotors.length];
+        for (int k = 0; k < rotors.length; k++) {
+            ids[k] = _config.id(rotors[k]);
+            if (ids[k] < 0) {
                 throw EnigmaException.error("Bad Rotor Given");
             }
-            if (_rotor.contains(selected)) {
-                throw EnigmaException.error("Duplicate Found");
-            }
-            selected.set(0);
-            _rotor.add(selected);
         }
-        if (_rotor.size() > numRotors()) {
+        insertRotors(ids);
+    }
+
+    /** Set my rotor slots to the rotors numbered IDS in my configuration
+     *  (IDS[0] numbers the reflector).  Initially, all rotors are set at
+     *  their 0 setting. */
+    void insertRotors(int[] ids) {
+        if (ids.length > numRotors()) {
             throw EnigmaException.error("More slots than rotors selected");
         }
-        if (!_rotor.get(0).reflecting()) {
+        boolean[] used = new boolean[_config.rotors().size()];
+        for (int id : ids) {
+            if (used[id]) {
+                throw EnigmaException.error("Duplicate Found");
+            }
+            used[id] = true;
+        }
+        if (ids.length == 0 || !_config.reflecting(ids[0])) {
             throw EnigmaException.error("First Rotor not Reflector.");
         }
+        buildStepper(ids);
+    }
+
+    /** Put the rotors numbered IDS in my slots, record which of them move
+     *  and their notch tables, and set every slot and ring to 0. */
+    private void buildStepper(int[] ids) {
+        int n = ids.length;
+        _rotor = new ArrayList<Rotor>(n);
+        _slots = new Rotor[n];
+        _positions = new int[n];
+        _rings = new int[n];
+        _rotates = new boolean[n];
+        _notchAt = new boolean[n][];
+        for (int k = 0; k < n; k++) {
+            _slots[k] = _config.rotor(ids[k]);
+            _rotor.add(_slots[k]);
+            _rotates[k] = _slots[k].rotates();
+            _notchAt[k] = _config.notchAt(ids[k]);
+        }
+        _composite = _caching && n > 1 ? new int[_alphabet.size()] : null;
+        invalidateComposite();
+        _odometer = new Odometer(_rotates, _notchAt, _alphabet.size());
+        _start = _positions.clone();
+        _offset = 0;
+    }
+
+    /** Return the number of characters converted since my rotors were
+     *  last set by insertRotors or setRotors, as changed by seek. */
+    long position() {
+        return _offset;
+    }
+
+    /** Set my rotors to the settings they would have after OFFSET
+     *  characters had been converted since they were last set by
+     *  insertRotors or setRotors.  Takes time independent of OFFSET
+     *  unless some rotor has notches at adjacent settings, in which case
+     *  the machine is stepped from its current or initial settings. */
+    void seek(long offset) {
+        if (offset < 0) {
+            throw EnigmaException.error("Negative offset given to seek.");
+        }
+        if (_odometer.exact()) {
+            _odometer.positions(_start, offset, _positions);
+            _offset = offset;
+        } else {
+            if (offset < _offset) {
+                System.arraycopy(_start, 0, _positions, 0, _start.length);
+                _offset = 0;
+            }
+            for (; _offset < offset; _offset++) {
+                advanceRotors();
+            }
+        }
+        invalidateComposite();
+    }
+
+    /** Return the number of times the rotor in each slot has moved since
+     *  my rotors were last set by insertRotors or setRotors, as changed by
+     *  seek, indexed by slot (empty if I have no rotors).  Takes time
+     *  independent of position() unless some rotor has notches at
+     *  adjacent settings, in which case the moves are replayed. */
+    long[] moves() {
+        if (_positions == null) {
+            return new long[0];
+        }
+        long[] result = new long[_positions.length];
+        if (_odometer.exact()) {
+            for (int k = 0; k < result.length; k++) {
+                result[k] = _odometer.steps(_start, k, _offset);
+            }
+            return result;
+        }
+        int[] positions = _positions.clone();
+        System.arraycopy(_start, 0, _positions, 0, _start.length);
+        int[] before = _start.clone();
+        for (long t = 0; t < _offset; t++) {
+            advanceRotors();
+            for (int k = 0; k < result.length; k++) {
+                if (_positions[k] != before[k]) {
+                    result[k] += 1;
+                    before[k] = _positions[k];
+                }
+            }
+        }
+        System.arraycopy(positions, 0, _positions, 0, positions.length);
+        invalidateComposite();
+        return result;
+    }
+
+    /** Turn caching of the rotors to the left of the fast rotor on or off,
+     *  according to ON.  Caching is on by default.  It takes effect at the
+     *  next insertRotors. */
+    void setCaching(boolean on) {
+        _caching = on;
+    }
+
+    /** Return the number of characters whose path through the slow rotors
+     *  and reflector was found in the cache. */
+    long compositeHits() {
+        return _compositeHits;
+    }
+
+    /** Return the number of characters whose path through the slow rotors
+     *  and reflector had to be computed. */
+    long compositeMisses() {
+        return _compositeMisses;
+    }
+
+    /** Forget the cached paths through the slow rotors and reflector. */
+    private void invalidateComposite() {
+        if (_composite != null) {
+            Arrays.fill(_composite, -1);
+        }
     }
 
     /** Set my rotors according to SETTING, which must be a string of
      *  numRotors()-1 characters in my alphabet. The first letter refers
      *  to the leftmost rotor setting (not counting the reflector).  */
-    void setRotors(String setting) {
-        if (setting.length() > numRotors() - 1) {
+    void setRotors(CharSequence setting) {
+        int length = Character.codePointCount(setting, 0, setting.length());
+        if (length > numRotors() - 1) {
             throw EnigmaException.error("Setting Given was too long.");
         }
-        for (int x = 0; x < numRotors() - 1; x++) {
-            char rotorCharacter = setting.charAt(x);
+        if (length < numRotors() - 1) {
+            throw EnigmaException.error("Setting Given was too short.");
+        }
+        for (int x = 0, k = 0; x < numRotors() - 1; x++) {
+            int rotorCharacter = Character.codePointAt(setting, k);
+            k += Character.charCount(rotorCharacter);
             if (!alphabet().contains(rotorCharacter)) {
                 throw EnigmaException.error("Character not in alphabet.");
             }
-            _rotor.get(x + 1).set(rotorCharacter);
+            int posn = alphabet().toInt(rotorCharacter);
+            if (posn != 0 && _slots[x + 1].reflecting()) {
+                throw error("reflector has only one position");
+            }
+            _positions[x + 1] = posn;
         }
+        invalidateComposite();
+        _start = _positions.clone();
+        _offset = 0;
     }
 
     /** Return the current plugboard's permutation. */
@@ -115,79 +304,93 @@ class Machine {
      *  the machine. */
     int convert(int c) {
         advanceRotors();
-        if (Main.verbose()) {
-            System.err.printf("[");
-            for (int r = 1; r < numRotors(); r += 1) {
-                System.err.printf("%c",
-                        alphabet().toChar(getRotor(r).setting()));
-            }
-            System.err.printf("] %c -> ", alphabet().toChar(c));
+        _offset += 1;
+        if (_tracing) {
+            _tracer.begin(_positions, c);
         }
         c = plugboard().permute(c);
-        if (Main.verbose()) {
-            System.err.printf("%c -> ", alphabet().toChar(c));
+        if (_tracing) {
+            _tracer.step(c);
         }
         c = applyRotors(c);
         c = plugboard().permute(c);
-        if (Main.verbose()) {
-            System.err.printf("%c%n", alphabet().toChar(c));
+        if (_tracing) {
+            _tracer.end(c);
         }
         return c;
     }
 
-    /** Advance all rotors to their next position. */
+    /** Advance all rotors to their next position.  Rotor K steps if it is
+     *  the fast rotor, if it is at a notch and rotor K-1 can move, or if
+     *  rotor K+1 is at a notch; all notches are read before any rotor
+     *  moves, which gives the double step of the middle rotors. */
     private void advanceRotors() {
-        ArrayList<Rotor> rotorOrder = new ArrayList<Rotor>(_rotor);
-        Collections.reverse(rotorOrder);
-        ArrayList<Rotor> advancedAlready = new ArrayList<Rotor>();
-        ArrayList<Boolean> atNotch = new ArrayList<Boolean>();
-        for (int y = 0; y < rotorOrder.size(); y++) {
-            if (rotorOrder.get(y).atNotch()) {
-                atNotch.add(true);
-            } else {
-                atNotch.add(false);
-            }
-        }
-        for (int x = 0; x < rotorOrder.size(); x++) {
-            if (rotorOrder.get(x) == rotorOrder.get(rotorOrder.size() - 1)) {
-                break;
+        int last = _positions.length - 1;
+        boolean slowMoved = false;
+        for (int k = 1; k <= last; k++) {
+            if (!_rotates[k]) {
+                continue;
             }
-            if (advancedAlready.contains(rotorOrder.get(x))) {
-                if (rotorOrder.get(x + 1).rotates()) {
-                    if (atNotch.get(x)) {
-                        rotorOrder.get(x + 1).advance();
-                        advancedAlready.add(rotorOrder.get(x + 1));
-                    }
-                }
-            } else if (rotorOrder.get(x).atNotch()) {
-                if (rotorOrder.get(x + 1).rotates()) {
-                    rotorOrder.get(x).advance();
-                    rotorOrder.get(x + 1).advance();
-                    advancedAlready.add(rotorOrder.get(x + 1));
-                    advancedAlready.add(rotorOrder.get(x));
+            boolean step = k == last
+                || (_notchAt[k][_positions[k]] && _rotates[k - 1])
+                || _notchAt[k + 1][_positions[k + 1]];
+            if (step) {
+                int posn = _positions[k] + 1;
+                if (posn == _alphabet.size()) {
+                    posn = 0;
                 }
+                _positions[k] = posn;
+                slowMoved |= k != last;
             }
         }
-        if (!advancedAlready.contains(rotorOrder.get(0))) {
-            rotorOrder.get(0).advance();
+        if (slowMoved) {
+            invalidateComposite();
         }
     }
 
     /** Return the result of applying the rotors to the character C (as an
      *  index in the range 0..alphabet size - 1). */
     private int applyRotors(int c) {
-        if (!_alphabet.contains(_alphabet.toChar(c))) {
+        if (c < 0 || c >= _alphabet.size()) {
             throw EnigmaException.error("Character not in alphabet");
         }
-        ArrayList<Rotor> frontPermutes = new ArrayList<Rotor>(_rotor);
-        Collections.reverse(frontPermutes);
-        ArrayList<Rotor> backPermutes = new ArrayList<Rotor>(_rotor);
-        backPermutes.remove(0);
-        for (Rotor V: frontPermutes) {
-            c = V.convertForward(c);
+        int last = _slots.length - 1;
+        if (_composite == null || _tracing) {
+            return applyRotors(c, last);
+        }
+        c = _slots[last].convertForward(c, offset(last));
+        int result = _composite[c];
+        if (result < 0) {
+            _compositeMisses += 1;
+            result = applyRotors(c, last - 1);
+            _composite[c] = result;
+        } else {
+            _compositeHits += 1;
+        }
+        return _slots[last].convertBackward(result, offset(last));
+    }
+
+    /** Return the setting of Rotor #K less its ring setting, modulo the
+     *  alphabet size. */
+    private int offset(int k) {
+        int d = _positions[k] - _rings[k];
+        return d < 0 ? d + _alphabet.size() : d;
+    }
+
+    /** Return the result of passing C forward through slots K down to 0
+     *  and back out through slots 1 to K. */
+    private int applyRotors(int c, int k) {
+        for (int x = k; x >= 0; x--) {
+            c = _slots[x].convertForward(c, offset(x));
+            if (_tracing) {
+                _tracer.step(c);
+            }
         }
-        for (Rotor V: backPermutes) {
-            c = V.convertBackward(c);
+        for (int x = 1; x <= k; x++) {
+            c = _slots[x].convertBackward(c, offset(x));
+            if (_tracing) {
+                _tracer.step(c);
+            }
         }
         return c;
     }
@@ -197,39 +400,259 @@ class Machine {
     String convert(String msg) {
         if (msg == null) {
             throw EnigmaException.error("Bad String Given");
-        } else if (msg == "") {
-            return msg;
-        } else {
-            int intAdded = convert(_alphabet.toInt(msg.charAt(0)));
-            char charAdded = _alphabet.toChar(intAdded);
-            return (charAdded + convert(msg.substring(1)));
         }
+        if (_alphabet.hasSupplementary()) {
+            return convert(msg, new StringBuilder(msg.length())).toString();
+        }
+        char[] buf = msg.toCharArray();
+        convert(buf, 0, buf.length, buf, 0);
+        return new String(buf);
+    }
+
+    /** Convert the LEN characters of IN starting at OFF, storing the
+     *  results in OUT starting at OUTOFF and updating the state of the
+     *  rotors accordingly.  IN and OUT may be the same array. */
+    void convert(char[] in, int off, int len, char[] out, int outOff) {
+        for (int x = 0; x < len; x++) {
+            int c = convert(_alphabet.toInt(in[off + x]));
+            out[outOff + x] = _alphabet.toChar(c);
+        }
+    }
+
+    /** As for convert(IN, OFF, LEN, OUT, OUTOFF), but for alphabets that
+     *  may have supplementary code points, which IN and OUT hold as
+     *  surrogate pairs.  OUT must have room for 2 * LEN characters and
+     *  must not overlap IN.  Returns the number of characters stored in
+     *  OUT. */
+    int convertCodePoints(char[] in, int off, int len, char[] out,
+                          int outOff) {
+        int end = off + len, k = outOff;
+        for (int x = off; x < end; ) {
+            int cp = Character.codePointAt(in, x, end);
+            x += Character.charCount(cp);
+            int c = convert(_alphabet.toInt(cp));
+            k += Character.toChars(_alphabet.toCodePoint(c), out, k);
+        }
+        return k - outOff;
+    }
+
+    /** Convert the LEN bytes of IN starting at OFF, storing the results
+     *  in OUT starting at OUTOFF and updating the state of the rotors
+     *  accordingly.  My alphabet must be Alphabet.bytes().  IN and OUT may
+     *  be the same array. */
+    void convert(byte[] in, int off, int len, byte[] out, int outOff) {
+        requireBytes();
+        for (int x = 0; x < len; x++) {
+            out[outOff + x] = (byte) convert(in[off + x] & BYTE_MASK);
+        }
+    }
+
+    /** Convert the bytes remaining in IN, or as many of them as there is
+     *  room for in OUT, putting the results in OUT and updating the state
+     *  of the rotors accordingly.  The positions of IN and OUT advance
+     *  past the bytes read and written.  My alphabet must be
+     *  Alphabet.bytes(). */
+    void convert(ByteBuffer in, ByteBuffer out) {
+        requireBytes();
+        int len = Math.min(in.remaining(), out.remaining());
+        if (in.hasArray() && out.hasArray()) {
+            convert(in.array(), in.arrayOffset() + in.position(), len,
+                    out.array(), out.arrayOffset() + out.position());
+            in.position(in.position() + len);
+            out.position(out.position() + len);
+            return;
+        }
+        for (int x = 0; x < len; x++) {
+            out.put((byte) convert(in.get() & BYTE_MASK));
+        }
+    }
+
+    /** Check that my alphabet is Alphabet.bytes(). */
+    private void requireBytes() {
+        if (!_bytes) {
+            throw error("Machine does not convert bytes.");
+        }
+    }
+
+    /** Append the encoding/decoding of MSG to OUT, updating the state of
+     *  the rotors accordingly. Returns OUT. */
+    <T extends Appendable> T convert(CharSequence msg, T out) {
+        try {
+            for (int x = 0; x < msg.length(); ) {
+                int cp = Character.codePointAt(msg, x);
+                x += Character.charCount(cp);
+                cp = _alphabet.toCodePoint(convert(_alphabet.toInt(cp)));
+                if (Character.isBmpCodePoint(cp)) {
+                    out.append((char) cp);
+                } else {
+                    out.append(Character.highSurrogate(cp))
+                        .append(Character.lowSurrogate(cp));
+                }
+            }
+        } catch (IOException excp) {
+            throw error("could not write converted message");
+        }
+        return out;
+    }
+
+    /** Returns the encoding/decoding of MSG as for convert(String),
+     *  splitting long messages among the threads of the common
+     *  ForkJoinPool. */
+    String convertParallel(String msg) {
+        if (msg == null) {
+            throw EnigmaException.error("Bad String Given");
+        }
+        if (_alphabet.hasSupplementary()) {
+            return convert(msg);
+        }
+        char[] buf = msg.toCharArray();
+        convertParallel(buf, 0, buf.length, buf, 0, ForkJoinPool.commonPool());
+        return new String(buf);
+    }
+
+    /** As for convert(IN, OFF, LEN, OUT, OUTOFF), but converting chunks
+     *  of a long message concurrently in POOL, each on a copy of me
+     *  positioned by seek at the start of its chunk.  The result and my
+     *  final state are the same as for convert.  Short messages, traced
+     *  mode, and rotors that seek cannot position directly are converted
+     *  sequentially. */
+    void convertParallel(char[] in, int off, int len, char[] out, int outOff,
+                         ForkJoinPool pool) {
+        if (len < 2 * PARALLEL_CHUNK || !_odometer.exact()
+            || _tracing) {
+            convert(in, off, len, out, outOff);
+            return;
+        }
+        long start = _offset;
+        pool.invoke(new ChunkTask(this, in, off, len, out, outOff, start));
+        seek(start + len);
+    }
+
+    /** A task converting part of a message on its own copy of a machine. */
+    private static class ChunkTask extends RecursiveAction {
+
+        /** A task converting the LEN characters of IN at OFF into OUT at
+         *  OUTOFF, using copies of MACHINE positioned at OFFSET. */
+        ChunkTask(Machine machine, char[] in, int off, int len,
+                  char[] out, int outOff, long offset) {
+            _machine = machine;
+            _in = in;
+            _off = off;
+            _len = len;
+            _out = out;
+            _outOff = outOff;
+            _offset = offset;
+        }
+
+        @Override
+        protected void compute() {
+            if (_len <= PARALLEL_CHUNK) {
+                Machine machine = _machine.copy();
+                machine.seek(_offset);
+                machine.convert(_in, _off, _len, _out, _outOff);
+                return;
+            }
+            int half = _len / 2;
+            invokeAll(new ChunkTask(_machine, _in, _off, half,
+                                    _out, _outOff, _offset),
+                      new ChunkTask(_machine, _in, _off + half, _len - half,
+                                    _out, _outOff + half, _offset + half));
+        }
+
+        /** Machine whose settings are copied. */
+        private final Machine _machine;
+        /** Source of characters. */
+        private final char[] _in;
+        /** Index of first character in _in. */
+        private final int _off;
+        /** Number of characters to convert. */
+        private final int _len;
+        /** Destination of converted characters. */
+        private final char[] _out;
+        /** Index of first converted character in _out. */
+        private final int _outOff;
+        /** Position of the first character for seek. */
+        private final long _offset;
     }
 
-    /** Takes String RING and assigns to Rotor. */
-    void ringstellung(String ring) {
-        for (int x = 1; x < numRotors(); x++) {
-            Rotor dRotor = _rotor.get(x);
-            String dString = ring.substring(x - 1, x);
-            dRotor.setRingSetting(dString);
+    /** Takes RING and assigns to Rotor. */
+    void ringstellung(CharSequence ring) {
+        if (Character.codePointCount(ring, 0, ring.length())
+            < numRotors() - 1) {
+            throw EnigmaException.error("Ring setting was too short.");
+        }
+        for (int x = 1, k = 0; x < numRotors(); x++) {
+            int cp = Character.codePointAt(ring, k);
+            k += Character.charCount(cp);
+            _rings[x] = alphabet().toInt(cp);
         }
+        invalidateComposite();
     }
 
+    /** Mask giving the unsigned value of a byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** Number of characters each task of convertParallel converts. */
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    /** Alphabet, slot counts and available rotors. */
+    private final Configuration _config;
+
     /** Common alphabet of my rotors. */
     private final Alphabet _alphabet;
 
-    /** Number of Rotor slots machine has. */
-    private int _numRotors;
+    /** True iff _alphabet is Alphabet.bytes(). */
+    private final boolean _bytes;
 
-    /** Number of pawls machine has. */
-    private int _pawls;
+    /** Receives the path of each character converted. */
+    private final Tracer _tracer;
 
-    /** All available Rotors. */
-    private ArrayList<Rotor> _availablerotorList;
+    /** True iff _tracer is not Tracer.NONE. */
+    private final boolean _tracing;
 
     /** List of Selected Rotors. */
     private ArrayList<Rotor> _rotor;
 
+    /** The rotors of _rotor, indexed by slot. */
+    private Rotor[] _slots;
+
+    /** Current setting of the rotor in each slot. */
+    private int[] _positions;
+
+    /** Ring setting of the rotor in each slot. */
+    private int[] _rings;
+
+    /** True for each slot whose rotor can move. */
+    private boolean[] _rotates;
+
+    /** _notchAt[K][P] is true iff the rotor in slot K has a notch at
+     *  setting P. */
+    private boolean[][] _notchAt;
+
+    /** Computes settings for seek. */
+    private Odometer _odometer;
+
+    /** Settings of each slot when last set by insertRotors or
+     *  setRotors. */
+    private int[] _start;
+
+    /** Number of characters converted since _start. */
+    private long _offset;
+
+    /** True iff paths through the slow rotors are to be cached. */
+    private boolean _caching = true;
+
+    /** _composite[C] is the result of passing C through every slot left
+     *  of the fast rotor and back, or -1 if not yet known.  The plugboard
+     *  is outside this path, so changing it leaves the cache valid. */
+    private int[] _composite;
+
+    /** Number of lookups answered by _composite. */
+    private long _compositeHits;
+
+    /** Number of lookups that had to fill in _composite. */
+    private long _compositeMisses;
+
     /** Plugboard represented by the Permutation Class. */
     private Permutation _plugboard;
 
@@ -0,0 +1,251 @@
+package enigma;
+
+import java.util.IdentityHashMap;
+
+/** A batch of machines that convert the same message at once, as for
+ *  searching for the settings that produced a message.  Each lane of the
+ *  batch starts with the rotors, settings, ring settings and plugboard of
+ *  one Machine and converts exactly as that Machine would, but the state
+ *  of all lanes is kept slot by slot in arrays indexed by lane, and each
+ *  step of the conversion is applied to a block of lanes before the
+ *  next.  Rotor permutations for every rotor setting are kept in flat
+ *  tables, so that each step is a table lookup per lane.  The passes
+ *  through the rotors are made by a BatchKernel: with the optional vector
+ *  kernel (built by "make vector"), each pass gathers the signals of a
+ *  whole vector of lanes at once with the Vector API; otherwise, the
+ *  lanes are handled one at a time.
+ *  @author Nithish Rajan
+ */
+class MachineBatch {
+
+    /** A batch with one lane for each of MACHINES, which must share a
+     *  Configuration and have all their slots filled.  Lane L starts in
+     *  the state of MACHINES[L]; the machines themselves are unchanged. */
+    MachineBatch(Machine... machines) {
+        if (machines.length == 0) {
+            throw EnigmaException.error("No machines given to batch.");
+        }
+        _config = machines[0].configuration();
+        _alphabet = _config.alphabet();
+        _size = _alphabet.size();
+        if (_size > MAX_SIZE) {
+            throw EnigmaException.error("Alphabet too large to batch.");
+        }
+        if (_alphabet.hasSupplementary()) {
+            throw EnigmaException.error("Alphabet not all single chars.");
+        }
+        _lanes = machines.length;
+        int slots = _config.numRotors();
+        _positions = new int[slots][_lanes];
+        _rings = new int[slots][_lanes];
+        _tables = new int[slots][_lanes];
+        _notches = new int[slots][_lanes];
+        _rotates = new boolean[slots][_lanes];
+        _plugs = new int[_lanes * _size];
+        _signal = new int[LANE_BLOCK];
+        _kernel = BatchKernel.create();
+        IdentityHashMap<Rotor, Integer> tables = new IdentityHashMap<>();
+        IdentityHashMap<boolean[], Integer> notches = new IdentityHashMap<>();
+        for (int l = 0; l < _lanes; l += 1) {
+            Machine machine = machines[l];
+            if (machine.configuration() != _config) {
+                throw EnigmaException.error("Batched machines differ.");
+            }
+            if (machine.rotors() == null
+                || machine.rotors().size() != slots) {
+                throw EnigmaException.error("Batched machine lacks rotors.");
+            }
+            for (int k = 0; k < slots; k += 1) {
+                Rotor rotor = machine.getRotor(k);
+                Integer table = tables.get(rotor);
+                if (table == null) {
+                    table = tables.size() * _size * _size;
+                    tables.put(rotor, table);
+                }
+                Integer notch = notches.get(machine.notchAt(k));
+                if (notch == null) {
+                    notch = notches.size() * _size;
+                    notches.put(machine.notchAt(k), notch);
+                }
+                _positions[k][l] = machine.setting(k);
+                _rings[k][l] = machine.ring(k);
+                _tables[k][l] = table;
+                _notches[k][l] = notch;
+                _rotates[k][l] = rotor.rotates();
+            }
+            Permutation plugboard = machine.plugboard();
+            for (int c = 0; c < _size; c += 1) {
+                _plugs[l * _size + c] =
+                    plugboard == null ? c : plugboard.permute(c);
+            }
+        }
+        _forward = new int[tables.size() * _size * _size];
+        _inverse = new int[_forward.length];
+        for (Rotor rotor : tables.keySet()) {
+            int base = tables.get(rotor);
+            for (int d = 0; d < _size; d += 1) {
+                for (int p = 0; p < _size; p += 1) {
+                    _forward[base + d * _size + p] = rotor.convertForward(p, d);
+                    _inverse[base + d * _size + p] =
+                        rotor.convertBackward(p, d);
+                }
+            }
+        }
+        _notchAt = new boolean[notches.size() * _size];
+        for (boolean[] notch : notches.keySet()) {
+            System.arraycopy(notch, 0, _notchAt, notches.get(notch), _size);
+        }
+    }
+
+    /** Return the number of lanes I have. */
+    int lanes() {
+        return _lanes;
+    }
+
+    /** Return the current setting of Rotor #K of lane LANE. */
+    int setting(int lane, int k) {
+        return _positions[k][lane];
+    }
+
+    /** Return the conversion of MSG by each lane, updating the state of
+     *  the lanes accordingly.  Element L of the result is what the
+     *  Machine lane L was made from would have returned from
+     *  convert(MSG). */
+    String[] convert(String msg) {
+        char[][] out = new char[_lanes][msg.length()];
+        convert(msg.toCharArray(), 0, msg.length(), out);
+        String[] result = new String[_lanes];
+        for (int l = 0; l < _lanes; l += 1) {
+            result[l] = new String(out[l]);
+        }
+        return result;
+    }
+
+    /** Convert the LEN characters of IN starting at OFF in every lane,
+     *  storing the result of lane L in the first LEN characters of OUT[L]
+     *  and updating the state of the lanes accordingly.  If IN contains a
+     *  character not in the alphabet, no lane is changed. */
+    void convert(char[] in, int off, int len, char[][] out) {
+        int[] message = new int[len];
+        for (int x = 0; x < len; x += 1) {
+            message[x] = _alphabet.toInt(in[off + x]);
+        }
+        for (int lo = 0; lo < _lanes; lo += LANE_BLOCK) {
+            int hi = Math.min(_lanes, lo + LANE_BLOCK);
+            for (int x = 0; x < len; x += 1) {
+                advanceRotors(lo, hi);
+                convert(message[x], lo, hi);
+                for (int l = lo; l < hi; l += 1) {
+                    out[l][x] = _alphabet.toChar(_signal[l - lo]);
+                }
+            }
+        }
+    }
+
+    /** Advance the rotors of lanes LO .. HI-1 as Machine.advanceRotors
+     *  does.  Slot K reads the settings of slot K+1 before they move. */
+    private void advanceRotors(int lo, int hi) {
+        int last = _positions.length - 1;
+        for (int k = 1; k <= last; k += 1) {
+            int[] posns = _positions[k];
+            boolean[] rotates = _rotates[k];
+            for (int l = lo; l < hi; l += 1) {
+                if (!rotates[l]) {
+                    continue;
+                }
+                boolean step = k == last
+                    || (_notchAt[_notches[k][l] + posns[l]]
+                        && _rotates[k - 1][l])
+                    || _notchAt[_notches[k + 1][l] + _positions[k + 1][l]];
+                if (step) {
+                    int posn = posns[l] + 1;
+                    posns[l] = posn == _size ? 0 : posn;
+                }
+            }
+        }
+    }
+
+    /** Set _signal[L - LO] to the conversion of C by lane L, for each lane
+     *  LO .. HI-1, whose rotors have already advanced. */
+    private void convert(int c, int lo, int hi) {
+        int[] signal = _signal;
+        int n = _size;
+        for (int l = lo; l < hi; l += 1) {
+            signal[l - lo] = _plugs[l * n + c];
+        }
+        int last = _positions.length - 1;
+        for (int k = last; k >= 0; k -= 1) {
+            pass(_forward, k, lo, hi);
+        }
+        for (int k = 1; k <= last; k += 1) {
+            pass(_inverse, k, lo, hi);
+        }
+        for (int l = lo; l < hi; l += 1) {
+            signal[l - lo] = _plugs[l * n + signal[l - lo]];
+        }
+    }
+
+    /** Pass _signal through the rotor in slot K of lanes LO .. HI-1,
+     *  looking up its permutation in TABLES (_forward or _inverse). */
+    private void pass(int[] tables, int k, int lo, int hi) {
+        _kernel.pass(tables, _positions[k], _rings[k], _tables[k], _size,
+                     _signal, lo, hi);
+    }
+
+    /** Number of lanes converted together.  Each character is converted
+     *  in every lane of a block before the next character, so the state
+     *  of a block should fit in cache. */
+    private static final int LANE_BLOCK = 256;
+
+    /** Largest alphabet that can be batched: each distinct rotor needs a
+     *  table of size squared entries each way. */
+    private static final int MAX_SIZE = 1024;
+
+    /** Configuration shared by every lane. */
+    private final Configuration _config;
+
+    /** Alphabet of _config. */
+    private final Alphabet _alphabet;
+
+    /** Size of _alphabet. */
+    private final int _size;
+
+    /** Number of lanes. */
+    private final int _lanes;
+
+    /** _positions[K][L] is the setting of slot K of lane L. */
+    private final int[][] _positions;
+
+    /** _rings[K][L] is the ring setting of slot K of lane L. */
+    private final int[][] _rings;
+
+    /** _tables[K][L] is the index in _forward and _inverse of the table
+     *  of the rotor in slot K of lane L. */
+    private final int[][] _tables;
+
+    /** _notches[K][L] is the index in _notchAt of the notch table of the
+     *  rotor in slot K of lane L. */
+    private final int[][] _notches;
+
+    /** _rotates[K][L] is true iff the rotor in slot K of lane L moves. */
+    private final boolean[][] _rotates;
+
+    /** _plugs[L * size + C] is the plugboard image of C in lane L. */
+    private final int[] _plugs;
+
+    /** The table of a rotor at index T holds at T + D * size + P the
+     *  conversion of P when its setting less its ring setting is D. */
+    private final int[] _forward;
+
+    /** As for _forward, but for the inverse permutations. */
+    private final int[] _inverse;
+
+    /** The notch tables of the rotors, each of size elements. */
+    private final boolean[] _notchAt;
+
+    /** Signal in each lane of the block being converted. */
+    private final int[] _signal;
+
+    /** Makes the passes of _signal through the rotors. */
+    private final BatchKernel _kernel;
+}
@@ -0,0 +1,99 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the MachineBatch class.
+ *  @author Nithish Rajan
+ */
+public class MachineBatchTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    private static final Alphabet AZ = new Alphabet(TestUtils.UPPER_STRING);
+
+    /** A configuration with all the naval rotors. */
+    private static final Configuration CONFIG =
+        TestUtils.navalConfiguration(AZ, 5, 3);
+
+    /** Return a machine for CONFIG with settings chosen by RAND. */
+    private Machine randomMachine(Random rand) {
+        Machine mach = new Machine(CONFIG);
+        String[] names = new String[5];
+        names[0] = rand.nextBoolean() ? "B" : "C";
+        names[1] = rand.nextBoolean() ? "Beta" : "Gamma";
+        List<String> moving = new ArrayList<>(List.of(TestUtils.NAVAL_MOVING));
+        for (int k = 2; k < 5; k += 1) {
+            names[k] = moving.remove(rand.nextInt(moving.size()));
+        }
+        mach.insertRotors(names);
+        mach.setRotors(randomLetters(rand, 4));
+        mach.ringstellung(randomLetters(rand, 4));
+        StringBuilder plugs = new StringBuilder();
+        List<Character> free = new ArrayList<>();
+        for (char c = 'A'; c <= 'Z'; c += 1) {
+            free.add(c);
+        }
+        for (int k = rand.nextInt(8); k > 0; k -= 1) {
+            plugs.append('(').append(free.remove(rand.nextInt(free.size())))
+                .append(free.remove(rand.nextInt(free.size()))).append(") ");
+        }
+        mach.setPlugboard(new Permutation(plugs.toString(), AZ));
+        return mach;
+    }
+
+    /** Return N letters chosen by RAND. */
+    private String randomLetters(Random rand, int n) {
+        char[] letters = new char[n];
+        for (int k = 0; k < n; k += 1) {
+            letters[k] = (char) ('A' + rand.nextInt(AZ.size()));
+        }
+        return new String(letters);
+    }
+
+    @Test
+    public void testMatchesMachine() {
+        Random rand = new Random(17);
+        Machine[] machines = new Machine[300];
+        for (int l = 0; l < machines.length; l += 1) {
+            machines[l] = randomMachine(rand);
+        }
+        MachineBatch batch = new MachineBatch(machines);
+        assertEquals(machines.length, batch.lanes());
+        for (int round = 0; round < 3; round += 1) {
+            String msg = randomLetters(rand, 400);
+            String[] converted = batch.convert(msg);
+            for (int l = 0; l < machines.length; l += 1) {
+                assertEquals("lane " + l, machines[l].convert(msg),
+                             converted[l]);
+                for (int k = 1; k < 5; k += 1) {
+                    assertEquals(machines[l].setting(k), batch.setting(l, k));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBadCharacter() {
+        Random rand = new Random(3);
+        Machine mach = randomMachine(rand);
+        MachineBatch batch = new MachineBatch(mach.copy(), mach.copy());
+        try {
+            batch.convert("HELLO WORLD");
+            fail("bad character accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("Character not in Alphabet.", excp.getMessage());
+        }
+        String expected = mach.convert("HELLOWORLD");
+        assertArrayEquals(new String[] { expected, expected },
+                          batch.convert("HELLOWORLD"));
+    }
+}
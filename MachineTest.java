@@ -1,6 +1,16 @@
 package enigma;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
 import org.junit.Test;
 import org.junit.Rule;
 import org.junit.rules.Timeout;
@@ -76,4 +86,322 @@ public class MachineTest {
         assertEquals("QVPQSOKOILPUBKJZPISFXDW",
                 mach.convert("FROMHISSHOULDERHIAWATHA"));
     }
+
+    @Test
+    public void testConvertBulk() {
+        Machine mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        char[] buf = "xxFROMHISSHOULDERHIAWATHA".toCharArray();
+        mach.convert(buf, 2, buf.length - 2, buf, 0);
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                new String(buf, 0, buf.length - 2));
+
+        mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        StringBuilder out = mach.convert("FROMHISSHOULDER",
+                new StringBuilder("> "));
+        mach.convert("HIAWATHA", out);
+        assertEquals("> QVPQSOKOILPUBKJZPISFXDW", out.toString());
+    }
+
+    @Test
+    public void testConvertLongMsg() {
+        char[] msg = new char[200000];
+        for (int i = 0; i < msg.length; i += 1) {
+            msg[i] = TestUtils.UPPER_STRING.charAt(i % 26);
+        }
+        Machine mach = mach1();
+        mach.setPlugboard(new Permutation("", AZ));
+        String cipher = mach.convert(new String(msg));
+        mach = mach1();
+        mach.setPlugboard(new Permutation("", AZ));
+        assertEquals(new String(msg), mach.convert(cipher));
+    }
+
+    /** Return the settings of the non-reflector rotors of MACH. */
+    private String settings(Machine mach) {
+        String result = "";
+        for (int k = 1; k < mach.numRotors(); k += 1) {
+            result += AZ.toChar(mach.setting(k));
+        }
+        return result;
+    }
+
+    @Test
+    public void testDoubleStep() {
+        Machine mach = new Machine(AZ, 5, 3, ROTORS.values());
+        mach.insertRotors(ROTORS1);
+        mach.setRotors("AUIQ");
+        mach.setPlugboard(new Permutation("", AZ));
+        mach.convert(0);
+        assertEquals("AUJR", settings(mach));
+        mach.convert(0);
+        assertEquals("AVKS", settings(mach));
+        mach.convert(0);
+        assertEquals("AVKT", settings(mach));
+    }
+
+    @Test
+    public void testCompositeCache() {
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        Machine mach = mach1();
+        mach.setCaching(false);
+        mach.insertRotors(ROTORS1);
+        mach.setRotors(SETTING1);
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        String expected = mach.convert(msg);
+        assertEquals(0, mach.compositeHits() + mach.compositeMisses());
+
+        mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        assertEquals(expected, mach.convert(msg));
+        assertEquals(msg.length(),
+                mach.compositeHits() + mach.compositeMisses());
+        assertTrue(mach.compositeHits() > 0);
+    }
+
+    /** Return a machine like mach1() that reports to TRACER. */
+    private Machine traced(Tracer tracer) {
+        Configuration config = new Configuration(AZ, 5, 3, ROTORS.values());
+        Machine mach = new Machine(config, tracer);
+        mach.insertRotors(ROTORS1);
+        mach.setRotors(SETTING1);
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        return mach;
+    }
+
+    @Test
+    public void testTracers() {
+        String msg = "FROMHISSHOULDERHIAWATHA";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream printed = new PrintStream(bytes, true);
+        RingTracer ring = new RingTracer(1 << 12);
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW",
+                traced(new PrintTracer(printed, AZ)).convert(msg));
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW", traced(ring).convert(msg));
+        String trace = bytes.toString();
+        assertTrue(trace.startsWith("[AXLF] F -> F -> "));
+        assertEquals(msg.length(), trace.split("\\R").length);
+        assertEquals(trace, ring.dump(new StringBuilder(), AZ).toString());
+
+        RingTracer small = new RingTracer(40);
+        traced(small).convert(msg);
+        assertTrue(small.recorded() > 64);
+        String[] kept = small.dump(new StringBuilder(), AZ).toString()
+            .split("\\R");
+        String[] all = trace.split("\\R");
+        assertTrue(kept.length > 0 && kept.length < all.length);
+        assertEquals(all[all.length - 1], kept[kept.length - 1]);
+        small.clear();
+        assertEquals("", small.dump(new StringBuilder(), AZ).toString());
+    }
+
+    @Test
+    public void testSeek() {
+        String msg = "FROMHISSHOULDERHIAWATHATOOKTHECAMERAOFROSEWOOD";
+        Machine mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        String cipher = mach.convert(msg);
+        assertEquals(msg.length(), mach.position());
+        String end = settings(mach);
+
+        mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        mach.seek(msg.length());
+        assertEquals(end, settings(mach));
+        mach.seek(20);
+        assertEquals(20, mach.position());
+        assertEquals(cipher.substring(20), mach.convert(msg.substring(20)));
+        mach.seek(0);
+        assertEquals(SETTING1, settings(mach));
+    }
+
+    @Test
+    public void testConvertParallel() {
+        char[] msg = new char[300001];
+        for (int i = 0; i < msg.length; i += 1) {
+            msg[i] = TestUtils.UPPER_STRING.charAt((i * 7 + i / 26) % 26);
+        }
+        Machine mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        String expected = mach.convert(new String(msg));
+        String end = settings(mach);
+
+        mach = mach1();
+        mach.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        assertEquals(expected, mach.convertParallel(new String(msg)));
+        assertEquals(msg.length, mach.position());
+        assertEquals(end, settings(mach));
+    }
+
+    @Test
+    public void testIndependentMachines() {
+        String msg = "FROMHISSHOULDERHIAWATHA";
+        Configuration config = new Configuration(AZ, 5, 3, ROTORS.values());
+        Machine mach1 = new Machine(config);
+        mach1.insertRotors(ROTORS1);
+        mach1.setRotors(SETTING1);
+        mach1.setPlugboard(new Permutation("(HQ) (EX) (IP) (TR) (BY)", AZ));
+        Machine mach2 = new Machine(config);
+        mach2.insertRotors(ROTORS1);
+        mach2.setRotors("QQQQ");
+        mach2.ringstellung("BCDE");
+        mach2.setPlugboard(new Permutation("", AZ));
+        Machine fork = mach1.copy();
+        String other = mach2.convert(msg);
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW", mach1.convert(msg));
+        assertEquals("QVPQSOKOILPUBKJZPISFXDW", fork.convert(msg));
+        mach2.setRotors("QQQQ");
+        assertEquals(other, mach2.convert(msg));
+    }
+
+    @Test
+    public void testRotorRegistry() {
+        Configuration config = new Configuration(AZ, 5, 3, ROTORS.values());
+        int beta = config.id("beta");
+        assertTrue(beta >= 0);
+        assertSame(ROTORS.get("Beta"), config.rotor(beta));
+        assertEquals(beta, config.id("BETA"));
+        assertEquals(-1, config.id("BET"));
+        assertTrue(config.reflecting(config.id("B")));
+        assertFalse(config.reflecting(beta));
+        assertTrue(config.fits(beta, 1));
+        assertFalse(config.fits(beta, 3));
+        assertTrue(config.fits(config.id("I"), 3));
+        assertTrue(config.notchAt(config.id("I"))[AZ.toInt('Q')]);
+        Machine mach = new Machine(config);
+        int[] ids = new int[ROTORS1.length];
+        for (int k = 0; k < ids.length; k += 1) {
+            ids[k] = config.id(ROTORS1[k]);
+        }
+        mach.insertRotors(ids);
+        mach.setRotors(SETTING1);
+        mach.setPlugboard(new Permutation("", AZ));
+        Machine named = mach1();
+        named.setPlugboard(new Permutation("", AZ));
+        assertEquals(named.convert("HELLOWORLD"), mach.convert("HELLOWORLD"));
+    }
+
+    @Test
+    public void testCompiledConfig() throws IOException {
+        Path text = Files.createTempFile("enigma", ".conf");
+        String name = text.toString();
+        try {
+            Files.write(text, "config".getBytes());
+            assertNull(CompiledConfig.load(name));
+            Configuration config =
+                new Configuration(AZ, 5, 3, ROTORS.values());
+            CompiledConfig.save(name, config);
+            Configuration loaded = CompiledConfig.load(name);
+            assertNotNull(loaded);
+            assertEquals(config.rotors().size(), loaded.rotors().size());
+            Machine mach = new Machine(loaded);
+            mach.insertRotors(ROTORS1);
+            mach.setRotors(SETTING1);
+            mach.setPlugboard(new Permutation("(HQ) (EX)", loaded.alphabet()));
+            Machine expected = mach1();
+            expected.setPlugboard(new Permutation("(HQ) (EX)", AZ));
+            assertEquals(expected.convert("FROMHISSHOULDERHIAWATHA"),
+                         mach.convert("FROMHISSHOULDERHIAWATHA"));
+            Files.write(text, "changed".getBytes());
+            assertNull(CompiledConfig.load(name));
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(Paths.get(name + CompiledConfig.SUFFIX));
+        }
+    }
+
+    @Test
+    public void testBytes() {
+        Alphabet bytes = Alphabet.bytes();
+        assertTrue(bytes.isBytes());
+        assertFalse(AZ.isBytes());
+        Random rand = new Random(18);
+        List<Rotor> rotors = new ArrayList<>();
+        int[] reflect = new int[bytes.size()];
+        int[] order = shuffled(rand, bytes.size());
+        for (int k = 0; k < order.length; k += 2) {
+            reflect[order[k]] = order[k + 1];
+            reflect[order[k + 1]] = order[k];
+        }
+        rotors.add(new Reflector("B", new Permutation(reflect, bytes)));
+        rotors.add(new FixedRotor("BETA",
+                new Permutation(shuffled(rand, bytes.size()), bytes)));
+        rotors.add(new MovingRotor("I",
+                new Permutation(shuffled(rand, bytes.size()), bytes), "\0"));
+        rotors.add(new MovingRotor("II",
+                new Permutation(shuffled(rand, bytes.size()), bytes), "A"));
+        rotors.add(new MovingRotor("III",
+                new Permutation(shuffled(rand, bytes.size()), bytes), "\377"));
+        Configuration config = new Configuration(bytes, 5, 3, rotors);
+        Machine mach = new Machine(config);
+        char[] setting = "* B BETA I II III 00fe4101 0a000000 (0041) (ff80)"
+            .toCharArray();
+        new SettingParser(config, "t")
+            .setUp(mach, setting, 0, setting.length, 1);
+        assertEquals(0x80, mach.plugboard().permute(0xff));
+        Machine chars = mach.copy();
+        byte[] data = new byte[5000];
+        rand.nextBytes(data);
+        byte[] converted = new byte[data.length];
+        mach.convert(data, 0, data.length, converted, 0);
+        StringBuilder text = new StringBuilder();
+        for (byte b : data) {
+            text.append((char) (b & 0xFF));
+        }
+        String expected = chars.convert(text.toString());
+        for (int k = 0; k < data.length; k += 1) {
+            assertEquals(expected.charAt(k), (char) (converted[k] & 0xFF));
+        }
+        Machine back = chars.copy();
+        back.seek(0);
+        ByteBuffer out = ByteBuffer.allocateDirect(data.length);
+        back.convert(ByteBuffer.wrap(converted), out);
+        out.flip();
+        byte[] decoded = new byte[data.length];
+        out.get(decoded);
+        assertArrayEquals(data, decoded);
+    }
+
+    @Test
+    public void testSupplementary() {
+        String smile = "\uD83D\uDE00", wink = "\uD83D\uDE09";
+        Alphabet alpha = new Alphabet("ABCDEFGHIJKLMNOPQRSTUVWXYZ" + smile
+                                      + wink);
+        List<Rotor> rotors = new ArrayList<>();
+        rotors.add(new Reflector("B", new Permutation(
+            "(AE) (BN) (CK) (DQ) (FU) (GY) (HW) (IJ) (LO) (MP) (RX) (S"
+            + smile + ") (TV) (" + wink + "Z)", alpha)));
+        rotors.add(new MovingRotor("I", new Permutation(
+            "(AELTPHQXRU) (BKNW) (CMOY" + wink + ") (DFG) (IV) (J"
+            + smile + ")", alpha), smile));
+        rotors.add(new MovingRotor("II", new Permutation(
+            "(FIXVYOMW) (CDKLHUP) (ESZ) (BJ) (GR) (NT)", alpha), "E"));
+        Machine mach = new Machine(alpha, 3, 2, rotors);
+        mach.insertRotors(new String[] { "B", "I", "II" });
+        mach.setRotors(smile + "A");
+        mach.setPlugboard(new Permutation("(A" + wink + ")", alpha));
+        Machine again = mach.copy();
+        String msg = "HELLO" + smile + "WORLD" + wink + wink + "A";
+        String converted = mach.convert(msg);
+        char[] out = new char[2 * msg.length()];
+        int len = again.convertCodePoints(msg.toCharArray(), 0, msg.length(),
+                                          out, 0);
+        assertEquals(converted, new String(out, 0, len));
+        assertEquals(msg.codePointCount(0, msg.length()),
+                     converted.codePointCount(0, converted.length()));
+        mach.seek(0);
+        assertEquals(msg, mach.convert(converted));
+    }
+
+    /** Return the numbers 0 .. N-1 in an order chosen by RAND. */
+    private int[] shuffled(Random rand, int n) {
+        int[] result = new int[n];
+        for (int k = 0; k < n; k += 1) {
+            int j = rand.nextInt(k + 1);
+            result[k] = result[j];
+            result[j] = k;
+        }
+        return result;
+    }
 }
@@ -1,13 +1,12 @@
 package enigma;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 import ucb.util.CommandArgs;
 
@@ -26,18 +25,65 @@ public final class Main {
      *  input.  ARGS[2] is optional; when present, it names an output
      *  file for processed messages.  Otherwise, output goes to the
      *  standard output. Exits normally if there are no errors in the input;
-     *  otherwise with code 1. */
+     *  otherwise with code 1.  With --parallel=N, the messages following
+     *  different setting lines are converted on N threads at once (by
+     *  default, one per processor).  With --serve=PORT, ARGS[0] must be
+     *  the only other argument, and messages are instead read from and
+     *  written to connections to the loopback port PORT (see Server).
+     *  With --bytes=SETTING, the configuration has the byte alphabet (see
+     *  parseConfig) and the input is any sequence of bytes, each replaced
+     *  by its conversion by the machine set up by setting line SETTING.
+     *  With --stats, counts of the work done are kept, served over JMX
+     *  (see Stats) while the run lasts, and summarized on the standard
+     *  error when it ends (with --serve, when the process is stopped).
+     *  Except with --bytes, a run that has to parse ARGS[0] writes its
+     *  compiled form to the file ARGS[0].compiled (see CompiledConfig),
+     *  which later runs load instead while ARGS[0] is unchanged; with
+     *  --no-snapshot, that file is neither read nor written. */
     public static void main(String... args) {
         try {
+            args = parallelism(args);
             CommandArgs options =
-                new CommandArgs("--verbose --=(.*){1,3}", args);
-            if (!options.ok()) {
+                new CommandArgs("--verbose --parallel --stats --no-snapshot "
+                                + "--serve=(\\d{1,5}) --bytes=(.+) "
+                                + "--=(.*){1,3}", args);
+            if (!options.ok() || _threads == 0
+                || options.contains("--serve")
+                   && (options.get("--").size() != 1
+                       || options.contains("--bytes"))) {
                 throw error("Usage: java enigma.Main [--verbose] "
-                            + "[INPUT [OUTPUT]]");
+                            + "[--parallel[=N]] [--stats] [--no-snapshot] "
+                            + "CONFIG [INPUT [OUTPUT]]%n"
+                            + "       java enigma.Main --bytes=SETTING "
+                            + "[--stats] CONFIG [INPUT [OUTPUT]]%n"
+                            + "       java enigma.Main --serve=PORT "
+                            + "[--stats] [--no-snapshot] CONFIG");
+            }
+            _byteSetting = options.getFirst("--bytes");
+            _statsWanted = options.contains("--stats");
+            _snapshot = !options.contains("--no-snapshot");
+            if (options.contains("--serve")) {
+                Main main = new Main(options.getFirst("--"));
+                try {
+                    main.serve(Integer.parseInt(options.getFirst("--serve")));
+                } finally {
+                    main.finishStats();
+                }
+                return;
             }
 
             _verbose = options.contains("--verbose");
-            new Main(options.get("--")).process();
+            if (!options.contains("--parallel")) {
+                _threads = 1;
+            } else if (_threads < 0) {
+                _threads = Runtime.getRuntime().availableProcessors();
+            }
+            Main main = new Main(options.get("--"));
+            try {
+                main.process();
+            } finally {
+                main.finishStats();
+            }
             return;
         } catch (EnigmaException excp) {
             System.err.printf("Error: %s%n", excp.getMessage());
@@ -45,272 +91,512 @@ public final class Main {
         System.exit(1);
     }
 
+    /** Return ARGS with "--parallel=N" replaced by "--parallel", setting
+     *  _threads to N (or to 0 if N is not a positive number).  CommandArgs
+     *  options either always or never take a value, so the count is split
+     *  off here. */
+    private static String[] parallelism(String[] args) {
+        _threads = -1;
+        String[] result = args.clone();
+        for (int k = 0; k < result.length; k += 1) {
+            if (result[k].startsWith(PARALLEL_OPTION)) {
+                String count = result[k].substring(PARALLEL_OPTION.length());
+                result[k] = "--parallel";
+                try {
+                    _threads = Math.max(0, Integer.parseInt(count));
+                } catch (NumberFormatException excp) {
+                    _threads = 0;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Return the configuration described by the configuration file
+     *  NAME, parsed as by a run without --bytes.  Its compiled form is
+     *  neither read nor written. */
+    static Configuration parseConfig(String name) {
+        return new Main(Lexer.open(name), false).parseConfig();
+    }
+
+    /** A Main that only parses the configuration in CONFIG, which is in
+     *  the format for --bytes iff BYTES. */
+    private Main(Lexer config, boolean bytes) {
+        _config = config;
+        _bytes = bytes;
+    }
+
+    /** A Main serving requests for machines described by configuration
+     *  file CONFIGNAME. */
+    Main(String configName) {
+        _configName = configName;
+        _bytes = false;
+        if (_snapshot) {
+            _configuration = loadCompiled(_configName);
+        }
+        if (_configuration == null) {
+            _config = Lexer.open(_configName);
+        }
+        _source = "request";
+    }
+
     /** Open the necessary files for non-option arguments ARGS (see comment
       *  on main). */
     Main(List<String> args) {
-        _config = getInput(args.get(0));
+        _configName = args.get(0);
+        _bytes = _byteSetting != null;
+        if (!_bytes && _snapshot) {
+            _configuration = loadCompiled(_configName);
+        }
+        if (_configuration == null) {
+            _config = Lexer.open(_configName);
+        }
+        if (_byteSetting != null) {
+            _rawInput = args.size() > 1 ? ByteStream.openInput(args.get(1))
+                : ByteStream.openInput(System.in);
+            _rawOutput = args.size() > 2 ? ByteStream.openOutput(args.get(2))
+                : ByteStream.openOutput(System.out);
+            return;
+        }
         if (args.size() > 1) {
-            _input = getInput(args.get(1));
+            _input = MessageInput.open(args.get(1));
+            _source = args.get(1);
         } else {
-            _input = new Scanner(System.in);
+            _input = MessageInput.open(System.in);
+            _source = "standard input";
         }
 
         if (args.size() > 2) {
-            _output = getOutput(args.get(2));
+            _output = MessageOutput.open(args.get(2));
         } else {
-            _output = System.out;
+            _output = MessageOutput.open(System.out);
         }
     }
 
-    /** Return a Scanner reading from the file named NAME. */
-    private Scanner getInput(String name) {
+    /** Configure an Enigma machine from the contents of configuration
+     *  file _config and apply it to the messages in _input, sending the
+     *  results to _output.  Whatever was converted before an error is
+     *  still written. */
+    private void process() {
+        if (_byteSetting != null) {
+            processBytes();
+            return;
+        }
         try {
-            return new Scanner(new File(name));
-        } catch (IOException excp) {
-            throw error("could not open %s", name);
+            Machine enigma = readConfig();
+            if (_threads > 1 && !_verbose
+                && !_configuration.alphabet().hasSupplementary()) {
+                processBlocks();
+            } else {
+                processMessages(enigma);
+            }
+        } finally {
+            _output.flush();
         }
     }
 
-    /** Return a PrintStream writing to the file named NAME. */
-    private PrintStream getOutput(String name) {
-        try {
-            return new PrintStream(new File(name));
-        } catch (IOException excp) {
-            throw error("could not open %s", name);
+    /** Convert the bytes of _rawInput to _rawOutput with a machine
+     *  configured from _config and set up by _byteSetting. */
+    private void processBytes() {
+        Machine enigma = readConfig();
+        char[] setting = _byteSetting.toCharArray();
+        new SettingParser(_configuration, "setting", _stats)
+            .setUp(enigma, setting, 0, setting.length, 1);
+        ConvertEvent event = new ConvertEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long count = new ByteStream(enigma, _rawInput, _rawOutput).convert();
+        if (_stats != null) {
+            _stats.converted(count, System.nanoTime() - start);
+            _stats.moved(enigma.moves());
+        }
+        if (event.shouldCommit()) {
+            event.length = count;
+            event.commit();
         }
     }
 
-    /** Configure an Enigma machine from the contents of configuration
-     *  file _config and apply it to the messages in _input, sending the
-     *  results to _output. */
-    private void process() {
-        Machine enigma = readConfig();
-        if (!_input.hasNext("[*]")) {
+    /** Serve requests for machines configured from _config on loopback
+     *  port PORT until the process is stopped. */
+    private void serve(int port) {
+        readConfig();
+        Server server = new Server(_configuration, port, _stats);
+        System.err.printf("Serving on port %d%n", server.port());
+        server.serve();
+    }
+
+    /** Apply ENIGMA, configured from _config, to the messages in
+     *  _input. */
+    private void processMessages(Machine enigma) {
+        if (!_input.hasNext('*')) {
             throw EnigmaException.error("Wrong Settings .");
         }
-        String next = _input.nextLine();
+        _input.nextLine();
         while (_input.hasNext()) {
-            String setting = next;
-            if (!setting.contains("*")) {
+            if (!_input.isSetting()) {
                 throw new EnigmaException("Wrong Settings Format");
             }
-            setUp(enigma, setting);
-            next = _input.nextLine();
-            while (next.length() == 0) {
+            _settings.setUp(enigma, _input.lineChars(), _input.lineStart(),
+                            _input.lineStart() + _input.length(),
+                            _input.lineNumber());
+            _input.nextLine();
+            while (_input.length() == 0) {
                 _output.println();
-                next = _input.nextLine();
+                _input.nextLine();
             }
-            while (!next.contains("*")) {
-                printMessageLine(enigma.convert(next.replaceAll(" ", "")));
+            while (!_input.isSetting()) {
+                convertLine(enigma);
                 if (!_input.hasNext()) {
                     break;
                 } else {
-                    next = _input.nextLine();
+                    _input.nextLine();
                 }
             }
         }
+        if (_stats != null) {
+            _stats.moved(enigma.moves());
+        }
     }
 
-    /** Return an Enigma machine configured from the contents of configuration
-     *  file _config. */
-    private Machine readConfig() {
+    /** Apply machines configured from _config to the messages in _input,
+     *  converting the blocks of messages after different setting lines on
+     *  _threads threads at once.  The blocks are printed in their original
+     *  order; no more than BLOCKS_PER_THREAD * _threads blocks, or (unless
+     *  one block is larger) MAX_PENDING_CHARS characters, wait to be
+     *  printed at a time. */
+    private void processBlocks() {
+        ForkJoinPool pool = new ForkJoinPool(_threads);
+        ArrayDeque<MessageBlock> pending = new ArrayDeque<>();
         try {
-            _availableRotors = new ArrayList<Rotor>();
-            String alphabet = _config.next();
-            if (!alphabet.matches("^((?![()* ])[\\x00-\\xFF])+")) {
-                throw EnigmaException.error("Illegal Alphabet Given");
-            }
-            _alphabet = new Alphabet(alphabet);
-            if (!_config.hasNextInt()) {
-                throw EnigmaException.error("Integer not Given for numRotors");
-            }
-            int numRotor = _config.nextInt();
-            if (!_config.hasNextInt()) {
-                throw EnigmaException.error("Integer not Given for numPawls");
-            }
-            int numPawl = _config.nextInt();
-            if (numPawl >= numRotor || numPawl == 0) {
-                throw EnigmaException.error("Bad # of rotors and pawls given.");
+            try {
+                if (!_input.hasNext('*')) {
+                    throw EnigmaException.error("Wrong Settings .");
+                }
+                _input.nextLine();
+                while (_input.hasNext()) {
+                    if (!_input.isSetting()) {
+                        throw new EnigmaException("Wrong Settings Format");
+                    }
+                    MessageBlock block =
+                        new MessageBlock(_configuration, _source, _input,
+                                         _stats);
+                    _input.nextLine();
+                    while (!_input.isSetting()) {
+                        block.add(_input);
+                        if (!_input.hasNext()) {
+                            break;
+                        }
+                        _input.nextLine();
+                    }
+                    pool.execute(block);
+                    pending.add(block);
+                    _pendingChars += block.size();
+                    while (pending.size() >= BLOCKS_PER_THREAD * _threads
+                           || _pendingChars > MAX_PENDING_CHARS) {
+                        printBlock(pending);
+                    }
+                }
+            } catch (EnigmaException excp) {
+                while (!pending.isEmpty()) {
+                    printBlock(pending);
+                }
+                throw excp;
             }
-            while (_config.hasNext()) {
-                _availableRotors.add(readRotor());
+            while (!pending.isEmpty()) {
+                printBlock(pending);
             }
-            return new Machine(_alphabet, numRotor, numPawl, _availableRotors);
-        } catch (NoSuchElementException excp) {
-            throw error("configuration file truncated");
+        } finally {
+            pool.shutdownNow();
         }
     }
 
-    /** Return a rotor, reading its description from _config. */
-    private Rotor readRotor() {
-        try {
-            String name = _config.next().toUpperCase();
-            String type = _config.next().toUpperCase();
-            String cycles = "";
-            while (_config.hasNext("\\s*[(].*[)]\\s*")) {
-                String space = _config.next().replaceAll("[)][(]", ") (");
-                cycles += space + " ";
+    /** Wait for the first block in PENDING to be converted, remove it, and
+     *  print it. */
+    private void printBlock(ArrayDeque<MessageBlock> pending) {
+        MessageBlock block = pending.remove();
+        block.join();
+        _pendingChars -= block.size();
+        block.print(_output);
+    }
+
+    /** Convert the current line of _input, without its blanks, using M,
+     *  and print the result in groups of five. */
+    private void convertLine(Machine M) {
+        int len = _input.messageLength();
+        ConvertEvent event = new ConvertEvent();
+        event.begin();
+        long start = _stats == null ? 0 : System.nanoTime();
+        int converted = len;
+        if (_configuration.alphabet().hasSupplementary()) {
+            if (_converted.length < 2 * len) {
+                _converted = new char[2 * len];
             }
-            if (type.length() > 1) {
-                String pawl = type.substring(1);
-                Permutation perm = new Permutation(cycles, _alphabet);
-                if (type.charAt(0) == 'M') {
-                    return new MovingRotor(name, perm, pawl);
-                }
+            converted = M.convertCodePoints(_input.message(), 0, len,
+                                            _converted, 0);
+        } else {
+            if (_converted.length < len) {
+                _converted = new char[Math.max(len, 2 * _converted.length)];
             }
-            if (type.charAt(0) == 'N') {
-                return new FixedRotor(name, new Permutation(cycles, _alphabet));
+            M.convert(_input.message(), 0, len, _converted, 0);
+        }
+        if (_stats != null) {
+            _stats.converted(len, System.nanoTime() - start);
+        }
+        if (event.shouldCommit()) {
+            event.length = len;
+            event.commit();
+        }
+        _output.printMessageLine(_converted, converted);
+    }
+
+    /** Return an Enigma machine configured from the contents of configuration
+     *  file _config, or from its compiled form if that is up to date. */
+    private Machine readConfig() {
+        if (_configuration == null) {
+            ConfigEvent event = new ConfigEvent();
+            event.begin();
+            _configuration = parseConfig();
+            if (_byteSetting == null && _snapshot) {
+                CompiledConfig.save(_configName, _configuration);
             }
-            if (type.charAt(0) == 'R') {
-                return new Reflector(name, new Permutation(cycles, _alphabet));
-            } else {
-                throw EnigmaException.error("Incorrect Rotor Type Given");
+            if (event.shouldCommit()) {
+                event.set(_configName, false, _configuration);
+                event.commit();
             }
-        } catch (NoSuchElementException excp) {
-            throw error("bad rotor description");
         }
+        if (_statsWanted && _stats == null) {
+            _stats = new Stats(_configuration.numRotors());
+            _stats.register();
+            Stats stats = _stats;
+            _statsHook = new Thread(() -> System.err.print(stats.summary()));
+            Runtime.getRuntime().addShutdownHook(_statsHook);
+        }
+        _settings = new SettingParser(_configuration, _source, _stats);
+        if (_verbose) {
+            return new Machine(_configuration,
+                               new PrintTracer(System.err,
+                                               _configuration.alphabet()));
+        }
+        return new Machine(_configuration);
     }
 
-    /** Set M according to the specification given on SETTINGS,
-     *  which must have the format specified in the assignment. */
-    private void setUp(Machine M, String settings) {
-        if (settings == "") {
-            throw EnigmaException.error("No Config Given");
-        }
-        listMaker();
-        Scanner rotorSettings = new Scanner(settings);
-        String[] rotors = new String[M.numRotors()];
-        String plugboardSetup = "";
-        if (!rotorSettings.hasNext("[*]")) {
-            throw EnigmaException.error("Wrong Settings Format");
-        }
-        rotorSettings.next();
-        int x = 0;
-        while (x != M.numRotors()) {
-            rotors[x] = rotorSettings.next().toUpperCase();
-            x++;
-        }
-        for (int i = 0; i < rotors.length - 1; i++) {
-            for (int j = i + 1; j < rotors.length; j++) {
-                if (rotors[i].equals(rotors[j])) {
-                    throw  EnigmaException.error("Duplicate Rotor");
-                }
-            }
+    /** If I kept statistics, print their summary on the standard error
+     *  and unregister them and their shutdown hook, so that a later Main
+     *  in this process may keep its own. */
+    private void finishStats() {
+        if (_stats == null) {
+            return;
         }
-        if (!rotorSettings.hasNext()) {
-            throw EnigmaException.error("General Error");
+        try {
+            Runtime.getRuntime().removeShutdownHook(_statsHook);
+        } catch (IllegalStateException excp) {
+            return;
         }
-        if (rotors.length > M.numRotors()) {
-            throw EnigmaException.error("Wrong number of Rotors passed in.");
+        _stats.unregister();
+        System.err.print(_stats.summary());
+        _stats = null;
+    }
+
+    /** Return the configuration compiled from configuration file NAME, as
+     *  for CompiledConfig.load. */
+    private static Configuration loadCompiled(String name) {
+        ConfigEvent event = new ConfigEvent();
+        event.begin();
+        Configuration result = CompiledConfig.load(name);
+        if (result != null && event.shouldCommit()) {
+            event.set(name, true, result);
+            event.commit();
         }
-        if (!_ref.contains("Rotor " + rotors[0])) {
-            throw EnigmaException.error("1st rotor not reflector.");
+        return result;
+    }
+
+    /** Return the configuration described by configuration file
+     *  _config.  With --bytes, the file does not begin with an alphabet:
+     *  its alphabet is Alphabet.bytes(), the notches of its moving rotors
+     *  are bytes in hexadecimal ("M0a41"), and each rotor's permutation is
+     *  given by the hexadecimal bytes of its table, in one or more tokens,
+     *  instead of by cycles. */
+    private Configuration parseConfig() {
+        ArrayList<Rotor> availableRotors = new ArrayList<Rotor>();
+        if (!_config.hasNext()) {
+            throw _config.error("configuration file truncated");
         }
-        for (int t = 0; t < rotors.length; t++) {
-            boolean movingBool = !_mov.contains("Rotor " + rotors[t]);
-            boolean reflectBool = !_ref.contains("Rotor " + rotors[t]);
-            boolean fixedBool = !_fix.contains("Rotor " + rotors[t]);
-            if (!fixedBool && !reflectBool && !movingBool) {
-                throw EnigmaException.error("Bad Rotor Name!");
+        if (_bytes) {
+            _alphabet = Alphabet.bytes();
+        } else {
+            if (!_config.isAlphabet()) {
+                throw _config.error("Illegal Alphabet Given");
+            }
+            try {
+                _alphabet = new Alphabet(_config.text());
+            } catch (EnigmaException excp) {
+                throw _config.error(excp.getMessage());
             }
+            _config.skip();
         }
-        String setter = rotorSettings.next();
-        M.insertRotors(rotors);
-        M.setRotors(setter);
-        if (rotorSettings.hasNext("(\\w{4})")) {
-            String ring = rotorSettings.next();
-            M.ringstellung(ring);
+        if (!_config.isInt()) {
+            throw _config.error("Integer not Given for numRotors");
         }
-        if (rotorSettings.hasNext("\\(\\w{2}\\)")) {
-            while (rotorSettings.hasNext("\\(\\w{2}\\)")) {
-                plugboardSetup += rotorSettings.next() + " ";
-            }
-        } else {
-            plugboardSetup = "";
+        int numRotor = _config.intValue();
+        _config.skip();
+        if (!_config.isInt()) {
+            throw _config.error("Integer not Given for numPawls");
         }
-        M.setPlugboard(new Permutation(plugboardSetup, _alphabet));
-        rotorConfig(M);
-    }
-
-    /** Return true iff verbose option specified. */
-    static boolean verbose() {
-        return _verbose;
+        int numPawl = _config.intValue();
+        if (numPawl >= numRotor || numPawl == 0) {
+            throw _config.error("Bad # of rotors and pawls given.");
+        }
+        _config.skip();
+        while (_config.hasNext()) {
+            availableRotors.add(readRotor());
+        }
+        return new Configuration(_alphabet, numRotor, numPawl,
+                                 availableRotors);
     }
 
-    /** Print MSG in groups of five (except that the last group may
-     *  have fewer letters). */
-    private void printMessageLine(String msg) {
-        if (msg == "") {
-            _output.println();
+    /** Return a rotor, reading its description from _config. */
+    private Rotor readRotor() {
+        int line = _config.line(), column = _config.column();
+        String name = _config.text().toUpperCase();
+        _config.skip();
+        if (!_config.hasNext()) {
+            throw _config.error("bad rotor description");
+        }
+        String type = _config.text().toUpperCase();
+        char kind = type.charAt(0);
+        if (kind == 'M' ? type.length() == 1 : kind != 'N' && kind != 'R') {
+            throw _config.error("Incorrect Rotor Type Given");
+        }
+        String notches = type.substring(1);
+        if (_bytes && kind == 'M') {
+            if (!_config.isHex(1, _config.length())) {
+                throw _config.error("Notches not in hexadecimal");
+            }
+            notches = _config.hexText(1, _config.length());
         }
-        while (msg != "") {
-            if (msg.length() <= 5) {
-                _output.println(msg);
-                msg = "";
+        _config.skip();
+        try {
+            Permutation perm =
+                _bytes ? readTable() : readCycles();
+            if (kind == 'M') {
+                return new MovingRotor(name, perm, notches);
+            } else if (kind == 'N') {
+                return new FixedRotor(name, perm);
             } else {
-                _output.print(msg.substring(0, 5) + " ");
-                msg = msg.substring(5);
+                return new Reflector(name, perm);
             }
+        } catch (EnigmaException excp) {
+            throw _config.error(excp.getMessage(), line, column);
         }
     }
 
-    /** Makes String Lists of the Rotors Available. */
-    void listMaker() {
-        _mov = new ArrayList<String>();
-        _fix = new ArrayList<String>();
-        _ref = new ArrayList<String>();
-        for (int x = 0; x < _availableRotors.size(); x++) {
-            String added = _availableRotors.get(x).toString();
-            if (_availableRotors.get(x).rotates()) {
-                _mov.add(added);
-            } else if (_availableRotors.get(x).reflecting()) {
-                _ref.add(added);
-            } else {
-                _fix.add(added);
-            }
+    /** Return the permutation given by the cycles at the current token
+     *  of _config, consuming them. */
+    private Permutation readCycles() {
+        _cycles.setLength(0);
+        while (_config.isCycles()) {
+            _config.appendCycles(_cycles);
+            _config.skip();
         }
+        return new Permutation(_cycles.toString(), _alphabet);
     }
-    /** Checks the Right Configuration of Rotors using machine M. */
-    void rotorConfig(Machine M) {
-        int diff = M.numRotors() - M.numPawls();
-        for (int x = 1; x < diff - 1; x++) {
-            if (M.rotors().get(x).rotates()) {
-                throw EnigmaException.error("Wrong Rotor Config.");
+
+    /** Return the permutation whose table is given by the hexadecimal
+     *  bytes at the current token of _config, consuming them. */
+    private Permutation readTable() {
+        int[] table = new int[_alphabet.size()];
+        int count = 0;
+        while (count < table.length && _config.isHex(0, _config.length())) {
+            String bytes = _config.hexText(0, _config.length());
+            if (count + bytes.length() > table.length) {
+                throw error("Rotor table too long");
             }
-        }
-        for (int y = diff; y < M.numRotors(); y++) {
-            if (!M.rotors().get(y).rotates()) {
-                throw EnigmaException.error("Wrong Rotor Config.");
+            for (int k = 0; k < bytes.length(); k += 1) {
+                table[count] = bytes.charAt(k);
+                count += 1;
             }
+            _config.skip();
         }
+        if (count < table.length) {
+            throw error("Rotor table too short");
+        }
+        return new Permutation(table, _alphabet);
     }
 
     /** Alphabet used in this machine. */
     private Alphabet _alphabet;
 
+    /** Name of the configuration file. */
+    private String _configName;
+
+    /** Alphabet, slots and available rotors of the configuration. */
+    private Configuration _configuration;
+
     /** Source of input messages. */
-    private Scanner _input;
+    private MessageInput _input;
 
-    /** Source of machine configuration. */
-    private Scanner _config;
+    /** Buffer for the conversion of each message line. */
+    private char[] _converted = new char[0];
+
+    /** Source of machine configuration, or null if its compiled form is
+     *  used instead. */
+    private Lexer _config;
+
+    /** True iff _config is in the format for --bytes. */
+    private final boolean _bytes;
+
+    /** Name of the source of _input, for error messages. */
+    private String _source;
+
+    /** Reader of the setting lines of _input. */
+    private SettingParser _settings;
+
+    /** Number of characters in blocks waiting to be printed. */
+    private long _pendingChars;
+
+    /** Cycles of the rotor being read by readRotor. */
+    private StringBuilder _cycles = new StringBuilder();
+
+    /** Prefix of the --parallel option with a thread count. */
+    private static final String PARALLEL_OPTION = "--parallel=";
+
+    /** Most blocks per thread waiting to be printed. */
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    /** Most characters in blocks waiting to be printed, unless a single
+     *  block is larger. */
+    private static final long MAX_PENDING_CHARS = 1 << 24;
+
+    /** Source of bytes with --bytes. */
+    private ReadableByteChannel _rawInput;
+
+    /** Destination of converted bytes with --bytes. */
+    private WritableByteChannel _rawOutput;
 
     /** File for encoded/decoded messages. */
-    private PrintStream _output;
+    private MessageOutput _output;
+
+    /** Setting line given by --bytes, or null. */
+    private static String _byteSetting;
 
     /** True if --verbose specified. */
     private static boolean _verbose;
 
-    /** The Arraylist of available Rotors. */
-    private ArrayList<Rotor> _availableRotors;
-
-    /** String List of the Moving Rotors Available. */
-    private ArrayList<String> _mov;
+    /** False if --no-snapshot specified: compiled configurations are then
+     *  neither loaded nor saved. */
+    private static boolean _snapshot;
 
-    /** String List of the Fixed Rotors Available. */
-    private ArrayList<String> _fix;
+    /** True if --stats specified. */
+    private static boolean _statsWanted;
 
-    /** String List of the Reflectors Available. */
-    private ArrayList<String> _ref;
+    /** Counts the work done with --stats, or null. */
+    private Stats _stats;
 
+    /** Shutdown hook printing a summary of _stats, if _stats is not
+     *  null. */
+    private Thread _statsHook;
 
+    /** Number of threads converting messages: 1 unless --parallel was
+     *  specified, and -1 if --parallel was given without a count. */
+    private static int _threads = -1;
 }
@@ -0,0 +1,144 @@
+package enigma;
+
+import java.util.concurrent.RecursiveAction;
+
+/** A setting line and the message lines after it, up to the next setting
+ *  line.  Each block is converted independently of the others, on a
+ *  Machine of its own, so blocks may be converted in parallel and then
+ *  printed in their original order.
+ *  @author Nithish Rajan
+ */
+class MessageBlock extends RecursiveAction {
+
+    /** A block whose setting line is the current line of INPUT, which is
+     *  the source named SOURCE, for machines described by CONFIG. */
+    MessageBlock(Configuration config, String source, MessageInput input) {
+        this(config, source, input, null);
+    }
+
+    /** A block as for MessageBlock(CONFIG, SOURCE, INPUT) that records
+     *  its work in STATS, if it is not null. */
+    MessageBlock(Configuration config, String source, MessageInput input,
+                 Stats stats) {
+        _config = config;
+        _stats = stats;
+        _source = source;
+        _settingLine = input.lineNumber();
+        _setting = new char[input.length()];
+        System.arraycopy(input.lineChars(), input.lineStart(), _setting, 0,
+                         _setting.length);
+        _text = new char[INITIAL_SIZE];
+        _ends = new int[INITIAL_LINES];
+    }
+
+    /** Add the characters of the current line of INPUT, without its blanks,
+     *  as my next message line. */
+    void add(MessageInput input) {
+        int len = input.messageLength();
+        if (_text.length - _size < len) {
+            char[] bigger = new char[Math.max(_size + len, 2 * _text.length)];
+            System.arraycopy(_text, 0, bigger, 0, _size);
+            _text = bigger;
+        }
+        System.arraycopy(input.message(), 0, _text, _size, len);
+        _size += len;
+        if (_lines == _ends.length) {
+            int[] bigger = new int[2 * _ends.length];
+            System.arraycopy(_ends, 0, bigger, 0, _lines);
+            _ends = bigger;
+        }
+        _ends[_lines] = _size;
+        _lines += 1;
+    }
+
+    /** Return the number of characters I hold. */
+    int size() {
+        return _setting.length + _size;
+    }
+
+    /** Set up a machine from my setting line and convert my message lines
+     *  in place, stopping at the first error. */
+    @Override
+    protected void compute() {
+        try {
+            Machine machine = new Machine(_config);
+            new SettingParser(_config, _source, _stats)
+                .setUp(machine, _setting, 0, _setting.length, _settingLine);
+            int start = 0;
+            for (int k = 0; k < _lines; k += 1) {
+                ConvertEvent event = new ConvertEvent();
+                event.begin();
+                long time = _stats == null ? 0 : System.nanoTime();
+                machine.convertParallel(_text, start, _ends[k] - start,
+                                        _text, start, getPool());
+                if (_stats != null) {
+                    _stats.converted(_ends[k] - start,
+                                     System.nanoTime() - time);
+                }
+                if (event.shouldCommit()) {
+                    event.length = _ends[k] - start;
+                    event.commit();
+                }
+                start = _ends[k];
+                _converted = k + 1;
+            }
+            if (_stats != null) {
+                _stats.moved(machine.moves());
+            }
+        } catch (RuntimeException excp) {
+            _error = excp;
+        }
+    }
+
+    /** Print my converted lines to OUT in groups of five, once compute()
+     *  has finished, and then throw the error that stopped it, if any. */
+    void print(MessageOutput out) {
+        int start = 0;
+        for (int k = 0; k < _converted; k += 1) {
+            out.printMessageLine(_text, start, _ends[k] - start);
+            start = _ends[k];
+        }
+        if (_error != null) {
+            throw _error;
+        }
+    }
+
+    /** Initial capacity of _text. */
+    private static final int INITIAL_SIZE = 256;
+
+    /** Initial capacity of _ends. */
+    private static final int INITIAL_LINES = 8;
+
+    /** Alphabet, slots and available rotors for my machine. */
+    private final Configuration _config;
+
+    /** Records my work, or null. */
+    private final Stats _stats;
+
+    /** Name of the input, for error messages. */
+    private final String _source;
+
+    /** My setting line. */
+    private final char[] _setting;
+
+    /** Line number of my setting line. */
+    private final int _settingLine;
+
+    /** Characters of my message lines, one after another. */
+    private char[] _text;
+
+    /** Number of valid characters in _text. */
+    private int _size;
+
+    /** _ends[K] is the index in _text just past message line K. */
+    private int[] _ends;
+
+    /** Number of message lines. */
+    private int _lines;
+
+    /** Number of message lines converted so far. */
+    private int _converted;
+
+    /** The error that stopped compute(), or null. */
+    private RuntimeException _error;
+}
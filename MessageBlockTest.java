@@ -0,0 +1,71 @@
+package enigma;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the MessageBlock class.
+ *  @author Nithish Rajan
+ */
+public class MessageBlockTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** A configuration with the naval rotors, five slots and three
+     *  pawls. */
+    private static final Configuration CONFIG =
+        TestUtils.navalConfiguration(new Alphabet(TestUtils.UPPER_STRING),
+                                     5, 3);
+
+    /** Return the first block of TEXT, converted on its own, as printed. */
+    private String convert(String text) {
+        MessageInput input = MessageInput.open(new ByteArrayInputStream(
+                text.getBytes(Charset.defaultCharset())));
+        input.nextLine();
+        MessageBlock block = new MessageBlock(CONFIG, "t", input);
+        while (input.nextLine()) {
+            block.add(input);
+        }
+        new ForkJoinPool(2).invoke(block);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessageOutput out = MessageOutput.open(bytes);
+        try {
+            block.print(out);
+        } finally {
+            out.flush();
+        }
+        return new String(bytes.toByteArray(), Charset.defaultCharset());
+    }
+
+    @Test
+    public void testConvert() {
+        String nl = System.lineSeparator();
+        assertEquals("QVPQS OKOIL PUBKJ ZPISF XDW" + nl + nl + "BHCNS CX" + nl,
+                     convert("* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)\n"
+                             + "FROM HIS SHOULDER HIAWATHA\n\nTOOK THE"));
+    }
+
+    @Test
+    public void testErrors() {
+        try {
+            convert("* B Beta III IV X AXLE\nHELLO");
+            fail("bad rotor accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("t:1:17: Bad Rotor Name!", excp.getMessage());
+        }
+        try {
+            convert("* B Beta III IV I AXLE\nHELLO\nHELLO WORLD!");
+            fail("bad character accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("Character not in Alphabet.", excp.getMessage());
+        }
+    }
+}
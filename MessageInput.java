@@ -0,0 +1,346 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static enigma.EnigmaException.*;
+
+/** The lines of a message file, read through a channel.  Regular files are
+ *  memory-mapped a region at a time; other sources are read through a
+ *  large direct buffer.  Each call to nextLine decodes the next line,
+ *  notes whether it contains '*', and collects its characters other than
+ *  blanks, all in one pass.  Lines and whitespace follow the rules of
+ *  java.util.Scanner, whose nextLine and hasNext this class replaces.
+ *  @author Nithish Rajan
+ */
+class MessageInput {
+
+    /** Return the lines of the file named NAME. */
+    static MessageInput open(String name) {
+        try {
+            Path path = Paths.get(name);
+            FileChannel channel = FileChannel.open(path,
+                                                   StandardOpenOption.READ);
+            if (Files.isRegularFile(path)) {
+                return new MessageInput(channel, channel.size());
+            }
+            return new MessageInput(channel, -1);
+        } catch (IOException | RuntimeException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return the lines of IN. */
+    static MessageInput open(InputStream in) {
+        return open(in, BUFFER_SIZE);
+    }
+
+    /** Return the lines of IN, read BUFFERSIZE bytes at a time. */
+    static MessageInput open(InputStream in, int bufferSize) {
+        return new MessageInput(Channels.newChannel(in), -1, bufferSize);
+    }
+
+    /** Lines read from CHANNEL, which is a FileChannel of SIZE bytes to be
+     *  mapped if SIZE >= 0. */
+    private MessageInput(ReadableByteChannel channel, long size) {
+        this(channel, size, BUFFER_SIZE);
+    }
+
+    /** Lines read from CHANNEL, which is a FileChannel of SIZE bytes to be
+     *  mapped if SIZE >= 0, or otherwise is read BUFFERSIZE bytes at a
+     *  time. */
+    private MessageInput(ReadableByteChannel channel, long size,
+                         int bufferSize) {
+        _channel = channel;
+        _size = size;
+        _decoder = Charset.defaultCharset().newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        if (size >= 0) {
+            _bytes = ByteBuffer.allocate(0);
+        } else {
+            _bytes = ByteBuffer.allocateDirect(bufferSize);
+            _bytes.flip();
+        }
+        int chars = Math.min(bufferSize, CHAR_BUFFER_SIZE);
+        _chars = new char[chars];
+        _message = new char[chars];
+    }
+
+    /** Make the next line current, returning false if there is none. */
+    boolean nextLine() {
+        _lineNumber += 1;
+        _lineStart = _pos;
+        _messageLength = 0;
+        _setting = false;
+        int k = _pos;
+        while (true) {
+            if (k == _end) {
+                k -= _lineStart;
+                if (!fill()) {
+                    break;
+                }
+                continue;
+            }
+            char ch = _chars[k];
+            if (ch == '\n' || ch == '\r' || ch == '\u2028'
+                || ch == '\u2029' || ch == '\u0085') {
+                _lineEnd = k;
+                k += 1;
+                if (ch == '\r') {
+                    if (k == _end) {
+                        k -= _lineStart;
+                        fill();
+                    }
+                    if (k < _end && _chars[k] == '\n') {
+                        k += 1;
+                    }
+                }
+                _pos = k;
+                return true;
+            }
+            if (ch == '*') {
+                _setting = true;
+            }
+            if (ch != ' ') {
+                if (_messageLength == _message.length) {
+                    char[] bigger = new char[2 * _message.length];
+                    System.arraycopy(_message, 0, bigger, 0, _messageLength);
+                    _message = bigger;
+                }
+                _message[_messageLength] = ch;
+                _messageLength += 1;
+            }
+            k += 1;
+        }
+        _pos = _lineEnd = k;
+        return k > _lineStart;
+    }
+
+    /** Return the current line. */
+    String line() {
+        return new String(_chars, _lineStart, _lineEnd - _lineStart);
+    }
+
+    /** Return the buffer holding the current line, which occupies
+     *  positions lineStart() .. lineStart() + length() - 1.  The buffer is
+     *  reused by later calls. */
+    char[] lineChars() {
+        return _chars;
+    }
+
+    /** Return the index of the current line in lineChars(). */
+    int lineStart() {
+        return _lineStart;
+    }
+
+    /** Return the number of the current line, starting from 1. */
+    int lineNumber() {
+        return _lineNumber;
+    }
+
+    /** Return the length of the current line. */
+    int length() {
+        return _lineEnd - _lineStart;
+    }
+
+    /** Return true iff the current line contains '*'. */
+    boolean isSetting() {
+        return _setting;
+    }
+
+    /** Return the characters of the current line other than blanks, in
+     *  positions 0 .. messageLength() - 1.  The array is reused. */
+    char[] message() {
+        return _message;
+    }
+
+    /** Return the number of characters in message(). */
+    int messageLength() {
+        return _messageLength;
+    }
+
+    /** Return true iff the whole of the line after the current one has
+     *  already been read, so that nextLine will not wait for the source. */
+    boolean ready() {
+        for (int k = _pos; k < _end; k += 1) {
+            char ch = _chars[k];
+            if (ch == '\n' || ch == '\u2028' || ch == '\u2029'
+                || ch == '\u0085' || ch == '\r' && k + 1 < _end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return true iff anything other than whitespace follows the current
+     *  line. */
+    boolean hasNext() {
+        return nextToken() >= 0;
+    }
+
+    /** Return true iff the next whitespace-delimited token after the
+     *  current line is the single character CH. */
+    boolean hasNext(char ch) {
+        int k = nextToken();
+        if (k < 0 || _chars[k] != ch) {
+            return false;
+        }
+        k += 1;
+        if (k == _end) {
+            k -= _lineStart;
+            if (!fill()) {
+                return true;
+            }
+        }
+        return Character.isWhitespace(_chars[k]);
+    }
+
+    /** Return the index in _chars of the first non-whitespace character
+     *  after the current line, or -1 if there is none. */
+    private int nextToken() {
+        int k = _pos;
+        while (true) {
+            if (k == _end) {
+                k -= _lineStart;
+                if (!fill()) {
+                    return -1;
+                }
+            } else if (Character.isWhitespace(_chars[k])) {
+                k += 1;
+            } else {
+                return k;
+            }
+        }
+    }
+
+    /** Move the characters from the start of the current line on to the
+     *  front of _chars, so that indices into _chars decrease by the old
+     *  _lineStart, and then decode more characters after them.  Returns
+     *  false if the input is exhausted. */
+    private boolean fill() {
+        int keep = _lineStart;
+        System.arraycopy(_chars, keep, _chars, 0, _end - keep);
+        _end -= keep;
+        _pos -= keep;
+        _lineStart -= keep;
+        _lineEnd = Math.max(0, _lineEnd - keep);
+        if (_chars.length - _end < 2) {
+            char[] bigger = new char[2 * _chars.length];
+            System.arraycopy(_chars, 0, bigger, 0, _end);
+            _chars = bigger;
+        }
+        if (_done) {
+            return false;
+        }
+        CharBuffer out = CharBuffer.wrap(_chars, _end, _chars.length - _end);
+        while (out.position() == _end) {
+            CoderResult result = _decoder.decode(_bytes, out, false);
+            if (out.position() > _end || result.isOverflow()) {
+                break;
+            }
+            if (!readBytes()) {
+                _decoder.decode(_bytes, out, true);
+                _decoder.flush(out);
+                _done = true;
+                break;
+            }
+        }
+        int before = _end;
+        _end = out.position();
+        return _end > before;
+    }
+
+    /** Make more bytes available in _bytes, keeping any not yet decoded.
+     *  Returns false at the end of the input. */
+    private boolean readBytes() {
+        try {
+            if (_size >= 0) {
+                long from = _mapped - _bytes.remaining();
+                if (_mapped >= _size) {
+                    return false;
+                }
+                long length = Math.min(MAP_REGION, _size - from);
+                _bytes = ((FileChannel) _channel)
+                    .map(FileChannel.MapMode.READ_ONLY, from, length);
+                _mapped = from + length;
+                return true;
+            }
+            _bytes.compact();
+            int n = _channel.read(_bytes);
+            _bytes.flip();
+            return n >= 0;
+        } catch (IOException excp) {
+            throw error("could not read input");
+        }
+    }
+
+    /** Bytes read from stdin and other streams at a time. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Bytes of a regular file mapped at a time. */
+    private static final long MAP_REGION = 1L << 28;
+
+    /** Initial size of the character buffers. */
+    private static final int CHAR_BUFFER_SIZE = 1 << 16;
+
+    /** Source of bytes. */
+    private final ReadableByteChannel _channel;
+
+    /** Size of the mapped file, or -1 if the input is not mapped. */
+    private final long _size;
+
+    /** Offset in the file just past the bytes mapped so far. */
+    private long _mapped;
+
+    /** Bytes read or mapped but not yet decoded. */
+    private ByteBuffer _bytes;
+
+    /** Decoder for the input's bytes. */
+    private final CharsetDecoder _decoder;
+
+    /** True once every byte has been decoded. */
+    private boolean _done;
+
+    /** Decoded characters, valid in 0 .. _end - 1. */
+    private char[] _chars;
+
+    /** Number of valid characters in _chars. */
+    private int _end;
+
+    /** Index in _chars of the first character after the current line. */
+    private int _pos;
+
+    /** Index in _chars of the start of the current line. */
+    private int _lineStart;
+
+    /** Index in _chars of the end of the current line, not counting its
+     *  terminator. */
+    private int _lineEnd;
+
+    /** Number of the current line. */
+    private int _lineNumber;
+
+    /** True iff the current line contains '*'. */
+    private boolean _setting;
+
+    /** Characters of the current line other than blanks. */
+    private char[] _message;
+
+    /** Number of valid characters in _message. */
+    private int _messageLength;
+}
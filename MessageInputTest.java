@@ -0,0 +1,77 @@
+package enigma;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the MessageInput class.
+ *  @author Nithish Rajan
+ */
+public class MessageInputTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** Return the lines of TEXT. */
+    private MessageInput input(String text) {
+        byte[] bytes = text.getBytes(Charset.defaultCharset());
+        return MessageInput.open(new ByteArrayInputStream(bytes));
+    }
+
+    @Test
+    public void testLines() {
+        MessageInput in = input("* B I AA\r\nHEL LO\n\n  \nWORLD");
+        assertTrue(in.hasNext('*'));
+        assertTrue(in.nextLine());
+        assertTrue(in.isSetting());
+        assertEquals("* B I AA", in.line());
+        assertTrue(in.nextLine());
+        assertFalse(in.isSetting());
+        assertEquals(6, in.length());
+        assertEquals("HELLO",
+                new String(in.message(), 0, in.messageLength()));
+        assertTrue(in.nextLine());
+        assertEquals(0, in.length());
+        assertTrue(in.nextLine());
+        assertEquals(2, in.length());
+        assertEquals(0, in.messageLength());
+        assertTrue(in.hasNext());
+        assertTrue(in.nextLine());
+        assertEquals("WORLD", in.line());
+        assertFalse(in.hasNext());
+        assertFalse(in.nextLine());
+    }
+
+    @Test
+    public void testTrailingWhitespace() {
+        MessageInput in = input("ABC\n\n \t\n");
+        assertFalse(in.hasNext('*'));
+        assertTrue(in.nextLine());
+        assertFalse(in.hasNext());
+        assertTrue(in.nextLine());
+        assertEquals(0, in.length());
+    }
+
+    @Test
+    public void testLongLine() {
+        StringBuilder text = new StringBuilder("*\n");
+        for (int i = 0; i < 300000; i += 1) {
+            text.append((char) ('A' + i % 26));
+        }
+        MessageInput in = input(text.append("\n*x\n").toString());
+        assertTrue(in.hasNext('*'));
+        in.nextLine();
+        in.nextLine();
+        assertEquals(300000, in.messageLength());
+        assertEquals('L', in.message()[299999]);
+        assertTrue(in.hasNext());
+        assertFalse(in.hasNext('*'));
+        in.nextLine();
+        assertTrue(in.isSetting());
+    }
+}
@@ -0,0 +1,188 @@
+package enigma;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static enigma.EnigmaException.*;
+
+/** A destination for converted messages.  Characters are encoded, split
+ *  into groups of five, and ended with line separators directly in a
+ *  reusable buffer, which is written to a channel only when full or
+ *  flushed.  The bytes written are those that PrintStream.print and
+ *  println would produce.
+ *  @author Nithish Rajan
+ */
+class MessageOutput {
+
+    /** Return an output writing to the file named NAME. */
+    static MessageOutput open(String name) {
+        try {
+            return new MessageOutput(
+                FileChannel.open(Paths.get(name), StandardOpenOption.WRITE,
+                                 StandardOpenOption.CREATE,
+                                 StandardOpenOption.TRUNCATE_EXISTING));
+        } catch (IOException | RuntimeException excp) {
+            throw error("could not open %s", name);
+        }
+    }
+
+    /** Return an output writing to OUT. */
+    static MessageOutput open(OutputStream out) {
+        return open(out, BUFFER_SIZE);
+    }
+
+    /** Return an output writing to OUT, BUFFERSIZE bytes at a time. */
+    static MessageOutput open(OutputStream out, int bufferSize) {
+        return new MessageOutput(Channels.newChannel(out), bufferSize);
+    }
+
+    /** An output writing to CHANNEL. */
+    private MessageOutput(WritableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    /** An output writing to CHANNEL, BUFFERSIZE bytes at a time. */
+    private MessageOutput(WritableByteChannel channel, int bufferSize) {
+        _channel = channel;
+        _bytes = ByteBuffer.allocateDirect(Math.max(bufferSize,
+                                                    MAX_CHAR_BYTES));
+        _encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        _char = CharBuffer.allocate(2);
+        String separator = System.lineSeparator();
+        _separator = new byte[separator.length()];
+        for (int k = 0; k < _separator.length; k += 1) {
+            _separator[k] = (byte) separator.charAt(k);
+        }
+    }
+
+    /** Print the first LEN characters of MSG in groups of five (except
+     *  that the last group may have fewer letters), and end the line. */
+    void printMessageLine(char[] msg, int len) {
+        printMessageLine(msg, 0, len);
+    }
+
+    /** Print MSG[OFF .. OFF+LEN-1] in groups of five, and end the line.
+     *  A surrogate pair counts as one character. */
+    void printMessageLine(char[] msg, int off, int len) {
+        int end = off + len;
+        for (int k = off, n = 0; k < end; k += 1, n += 1) {
+            if (n > 0 && n % GROUP == 0) {
+                put(' ');
+            }
+            char ch = msg[k];
+            if (Character.isHighSurrogate(ch) && k + 1 < end
+                && Character.isLowSurrogate(msg[k + 1])) {
+                put(ch, msg[k + 1]);
+                k += 1;
+            } else {
+                put(ch);
+            }
+        }
+        println();
+    }
+
+    /** Print TEXT, as it is, and end the line. */
+    void println(CharSequence text) {
+        for (int k = 0; k < text.length(); k += 1) {
+            char ch = text.charAt(k);
+            if (Character.isHighSurrogate(ch) && k + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(k + 1))) {
+                put(ch, text.charAt(k + 1));
+                k += 1;
+            } else {
+                put(ch);
+            }
+        }
+        println();
+    }
+
+    /** End the current line. */
+    void println() {
+        ensure(_separator.length);
+        _bytes.put(_separator);
+    }
+
+    /** Write everything printed so far. */
+    void flush() {
+        try {
+            _bytes.flip();
+            while (_bytes.hasRemaining()) {
+                _channel.write(_bytes);
+            }
+            _bytes.clear();
+        } catch (IOException excp) {
+            throw error("could not write output");
+        }
+    }
+
+    /** Add the encoding of CH to the buffer. */
+    private void put(char ch) {
+        ensure(MAX_CHAR_BYTES);
+        if (ch < ASCII_LIMIT) {
+            _bytes.put((byte) ch);
+        } else {
+            _char.clear();
+            _char.put(ch).flip();
+            _encoder.encode(_char, _bytes, true);
+            _encoder.flush(_bytes);
+            _encoder.reset();
+        }
+    }
+
+    /** Add the encoding of the surrogate pair HIGH, LOW to the buffer. */
+    private void put(char high, char low) {
+        ensure(MAX_CHAR_BYTES);
+        _char.clear();
+        _char.put(high).put(low).flip();
+        _encoder.encode(_char, _bytes, true);
+        _encoder.flush(_bytes);
+        _encoder.reset();
+    }
+
+    /** Make room for at least N more bytes in the buffer. */
+    private void ensure(int n) {
+        if (_bytes.remaining() < n) {
+            flush();
+        }
+    }
+
+    /** Size of the output buffer in bytes. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /** Number of characters in each printed group. */
+    private static final int GROUP = 5;
+
+    /** Characters below this are written as single bytes. */
+    private static final char ASCII_LIMIT = 0x80;
+
+    /** Most bytes any character is encoded as. */
+    private static final int MAX_CHAR_BYTES = 8;
+
+    /** Destination of the output. */
+    private final WritableByteChannel _channel;
+
+    /** Bytes not yet written to _channel. */
+    private final ByteBuffer _bytes;
+
+    /** Encoder for characters outside ASCII. */
+    private final CharsetEncoder _encoder;
+
+    /** Holds a character or surrogate pair for _encoder. */
+    private final CharBuffer _char;
+
+    /** Bytes of the line separator. */
+    private final byte[] _separator;
+}
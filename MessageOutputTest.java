@@ -0,0 +1,73 @@
+package enigma;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the MessageOutput class.
+ *  @author Nithish Rajan
+ */
+public class MessageOutputTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** Line separator written by println. */
+    private static final String NL = System.lineSeparator();
+
+    /** Return the text written to BYTES. */
+    private String text(ByteArrayOutputStream bytes) {
+        return new String(bytes.toByteArray(), Charset.defaultCharset());
+    }
+
+    @Test
+    public void testGroups() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessageOutput out = MessageOutput.open(bytes);
+        char[] msg = "HELLOWORLDAB".toCharArray();
+        out.printMessageLine(msg, 12);
+        out.printMessageLine(msg, 10);
+        out.printMessageLine(msg, 0);
+        out.println();
+        out.printMessageLine(msg, 3);
+        assertEquals("", text(bytes));
+        out.flush();
+        assertEquals("HELLO WORLD AB" + NL + "HELLO WORLD" + NL + NL + NL
+                     + "HEL" + NL, text(bytes));
+    }
+
+    @Test
+    public void testSurrogates() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessageOutput out = MessageOutput.open(bytes);
+        char[] msg = "A\uD83D\uDE00BCDEF".toCharArray();
+        out.printMessageLine(msg, msg.length);
+        out.flush();
+        String expected = "A\uD83D\uDE00BCD EF" + NL;
+        assertEquals(new String(expected.getBytes(Charset.defaultCharset()),
+                                Charset.defaultCharset()),
+                     text(bytes));
+    }
+
+    @Test
+    public void testLongLine() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MessageOutput out = MessageOutput.open(bytes);
+        char[] msg = new char[1000000];
+        for (int k = 0; k < msg.length; k += 1) {
+            msg[k] = (char) ('A' + k % 26);
+        }
+        out.printMessageLine(msg, msg.length);
+        out.flush();
+        String result = text(bytes);
+        assertEquals(msg.length + msg.length / 5 - 1 + NL.length(),
+                     result.length());
+        assertEquals("ABCDE FGHIJ", result.substring(0, 11));
+        assertTrue(result.endsWith(" JKLMN" + NL));
+    }
+}
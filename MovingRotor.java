@@ -9,8 +9,6 @@ class MovingRotor extends Rotor {
 
     /** A rotor named NAME whose permutation in its default setting is
      *  PERM, and whose notches are at the positions indicated in NOTCHES.
-     *  The Rotor is initally in its 0 setting (first character of its
-     *  alphabet).
      */
     MovingRotor(String name, Permutation perm, String notches) {
         super(name, perm);
@@ -23,20 +21,6 @@ class MovingRotor extends Rotor {
         return true;
     }
 
-    @Override
-    boolean atNotch() {
-        char checkSetting = alphabet().toChar(setting());
-        if (_notches.indexOf(checkSetting) != -1) {
-            return true;
-        }
-        return false;
-    }
-
-    @Override
-    void advance() {
-        set(permutation().wrap(setting() + 1));
-    }
-
     @Override
     String notches() {
         return _notches;
@@ -23,6 +23,33 @@ public class MovingRotorTest {
     private Rotor rotor;
     private String alpha = UPPER_STRING;
 
+    /** Setting and ring setting of rotor.  Rotors keep no settings of
+     *  their own, so these stand in for a machine slot. */
+    private int setting, ring;
+
+    /** Set setting to POSN. */
+    private void set(int posn) {
+        setting = posn % rotor.size();
+    }
+
+    /** Advance setting by one position. */
+    private void advance() {
+        set(setting + 1);
+    }
+
+    /** Return the conversion of P by rotor at setting and ring. */
+    private int convertForward(int p) {
+        return rotor.convertForward(p, rotor.permutation()
+                                    .wrap(setting - ring));
+    }
+
+    /** Return the inverse conversion of E by rotor at setting and
+     *  ring. */
+    private int convertBackward(int e) {
+        return rotor.convertBackward(e, rotor.permutation()
+                                     .wrap(setting - ring));
+    }
+
     /** Check that rotor has an alphabet whose size is that of
      *  FROMALPHA and TOALPHA and that maps each character of
      *  FROMALPHA to the corresponding character of FROMALPHA, and
@@ -35,9 +62,9 @@ public class MovingRotorTest {
             char c = fromAlpha.charAt(i), e = toAlpha.charAt(i);
             int ci = alpha.indexOf(c), ei = alpha.indexOf(e);
             assertEquals(msg(testId, "wrong translation of %d (%c)", ci, c),
-                         ei, rotor.convertForward(ci));
+                         ei, convertForward(ci));
             assertEquals(msg(testId, "wrong inverse of %d (%c)", ei, e),
-                         ci, rotor.convertBackward(ei));
+                         ci, convertBackward(ei));
         }
     }
 
@@ -47,6 +74,8 @@ public class MovingRotorTest {
                           String notches) {
         rotor = new MovingRotor(name, new Permutation(rotors.get(name), UPPER),
                                 notches);
+        setting = 0;
+        ring = 0;
     }
 
     /* ***** TESTS ***** */
@@ -60,14 +89,14 @@ public class MovingRotorTest {
     @Test
     public void checkRotorAdvance() {
         setRotor("I", NAVALA, "");
-        rotor.advance();
+        advance();
         checkRotor("Rotor I advanced", UPPER_STRING, NAVALB_MAP.get("I"));
     }
 
     @Test
     public void checkRotorSet() {
         setRotor("I", NAVALA, "");
-        rotor.set(25);
+        set(25);
         checkRotor("Rotor I set", UPPER_STRING, NAVALZ_MAP.get("I"));
     }
 
@@ -76,11 +105,11 @@ public class MovingRotorTest {
         setRotor("I", NAVALA, "");
         checkRotor("Rotor I (A)", UPPER_STRING, NAVALA_MAP.get("I"));
         assertEquals(alpha.indexOf('P'),
-                rotor.convertForward(alpha.indexOf('T')));
+                convertForward(alpha.indexOf('T')));
         assertEquals(alpha.indexOf('A'),
-                rotor.convertForward(alpha.indexOf('U')));
+                convertForward(alpha.indexOf('U')));
         assertEquals(alpha.indexOf('S'),
-                rotor.convertForward(alpha.indexOf('S')));
+                convertForward(alpha.indexOf('S')));
     }
 
     @Test
@@ -88,11 +117,21 @@ public class MovingRotorTest {
         setRotor("I", NAVALA, "");
         checkRotor("Rotor I (A)", UPPER_STRING, NAVALA_MAP.get("I"));
         assertEquals(alpha.indexOf('T'),
-                rotor.convertBackward(alpha.indexOf('P')));
+                convertBackward(alpha.indexOf('P')));
         assertEquals(alpha.indexOf('U'),
-                rotor.convertBackward(alpha.indexOf('A')));
+                convertBackward(alpha.indexOf('A')));
         assertEquals(alpha.indexOf('S'),
-                rotor.convertBackward(alpha.indexOf('S')));
+                convertBackward(alpha.indexOf('S')));
+    }
+
+    @Test
+    public void checkRingSetting() {
+        setRotor("I", NAVALA, "");
+        set(1);
+        ring = alpha.indexOf('B');
+        checkRotor("Rotor I B/B", UPPER_STRING, NAVALA_MAP.get("I"));
+        set(0);
+        checkRotor("Rotor I A/B", UPPER_STRING, NAVALZ_MAP.get("I"));
     }
 
 }
@@ -0,0 +1,150 @@
+package enigma;
+
+/** Computes the settings of a machine's rotors after any number of
+ *  keystrokes without replaying them.
+ *
+ *  Rotor K moves on a keystroke when rotor K+1 leaves a notch (a carry)
+ *  or, if rotor K-1 can move, when rotor K itself sits at a notch.  A
+ *  rotor at a notch therefore always leaves it on the next keystroke, so
+ *  the carries into rotor K are just the notch positions rotor K+1 has
+ *  passed, and rotor K waits for carries only at its non-notch ("idle")
+ *  positions.  Counting both with prefix sums gives each rotor's steps in
+ *  time independent of the number of keystrokes.  This is exact when no
+ *  rotor has notches at two adjacent positions; otherwise exact() is
+ *  false and the caller must step the machine instead.
+ *  @author Nithish Rajan
+ */
+class Odometer {
+
+    /** An odometer for slots with the given ROTATES flags and NOTCHAT
+     *  tables (as kept by Machine), over an alphabet of SIZE
+     *  characters. */
+    Odometer(boolean[] rotates, boolean[][] notchAt, int size) {
+        _rotates = rotates;
+        _notchAt = notchAt;
+        _size = size;
+        int n = rotates.length;
+        _notchPrefix = new int[n][2 * size + 1];
+        _notchCount = new int[n];
+        _idle = new int[n][];
+        _idleRank = new int[n][size];
+        _exact = size > 1;
+        for (int k = 0; k < n; k++) {
+            int idle = 0;
+            for (int p = 0; p < 2 * size; p++) {
+                boolean notch = notchAt[k][p % size];
+                _notchPrefix[k][p + 1] = _notchPrefix[k][p] + (notch ? 1 : 0);
+                if (notch && p < size && notchAt[k][(p + 1) % size]) {
+                    _exact = false;
+                }
+            }
+            _notchCount[k] = _notchPrefix[k][size];
+            _idle[k] = new int[size - _notchCount[k]];
+            for (int p = 0; p < size; p++) {
+                if (notchAt[k][p]) {
+                    _idleRank[k][p] = -1;
+                } else {
+                    _idleRank[k][p] = idle;
+                    _idle[k][idle] = p;
+                    idle += 1;
+                }
+            }
+        }
+    }
+
+    /** Return true iff positions() is exact for my rotors. */
+    boolean exact() {
+        return _exact;
+    }
+
+    /** Store into RESULT the settings of every slot after OFFSET
+     *  keystrokes, starting from the settings in START. */
+    void positions(int[] start, long offset, int[] result) {
+        for (int k = 0; k < start.length; k++) {
+            long posn = start[k] + steps(start, k, offset) % _size;
+            result[k] = (int) (posn % _size);
+        }
+    }
+
+    /** Return the number of times the rotor in slot K moves during the
+     *  first T keystrokes from the settings in START. */
+    long steps(int[] start, int k, long t) {
+        if (t <= 0 || !_rotates[k]) {
+            return 0;
+        }
+        if (k == start.length - 1) {
+            return t;
+        }
+        long carries = carries(start, k, t);
+        if (!_rotates[k - 1]) {
+            return carries;
+        }
+        int idle = start[k];
+        long base = 0, absorbed = 0;
+        if (_notchAt[k][idle]) {
+            if (t == 1) {
+                return 1;
+            }
+            base = 1;
+            idle = (idle + 1) % _size;
+            absorbed = carries(start, k, 1);
+        }
+        long m = carries - absorbed;
+        if (m == 0) {
+            return base;
+        }
+        long result = toIdle(k, idle, m);
+        if (carries(start, k, t - 1) < carries
+            && result - toIdle(k, idle, m - 1) == 2) {
+            result -= 1;
+        }
+        return base + result;
+    }
+
+    /** Return the number of carries into slot K during the first T
+     *  keystrokes from the settings in START. */
+    private long carries(int[] start, int k, long t) {
+        return notches(k + 1, start[k + 1], steps(start, k + 1, t));
+    }
+
+    /** Return the number of notches of slot K among the M settings
+     *  starting at P. */
+    private long notches(int k, int p, long m) {
+        int[] prefix = _notchPrefix[k];
+        int r = (int) (m % _size);
+        return (m / _size) * _notchCount[k] + prefix[p + r] - prefix[p];
+    }
+
+    /** Return the number of steps the rotor in slot K takes to go from
+     *  idle setting P to the M-th idle setting after it. */
+    private long toIdle(int k, int p, long m) {
+        int[] idle = _idle[k];
+        long j = _idleRank[k][p] + m;
+        return idle[(int) (j % idle.length)] + (j / idle.length) * _size - p;
+    }
+
+    /** True for each slot whose rotor can move. */
+    private final boolean[] _rotates;
+
+    /** Notch table of each slot, indexed by setting. */
+    private final boolean[][] _notchAt;
+
+    /** Size of the alphabet. */
+    private final int _size;
+
+    /** _notchPrefix[K][P] is the number of notches of slot K among
+     *  settings 0..P-1, counting settings past size() cyclically. */
+    private final int[][] _notchPrefix;
+
+    /** Number of notches of each slot. */
+    private final int[] _notchCount;
+
+    /** The non-notch settings of each slot, in increasing order. */
+    private final int[][] _idle;
+
+    /** Index in _idle of each non-notch setting, or -1 for a notch. */
+    private final int[][] _idleRank;
+
+    /** True iff no slot has notches at adjacent settings. */
+    private boolean _exact;
+}
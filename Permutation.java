@@ -1,5 +1,8 @@
 package enigma;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import static enigma.EnigmaException.*;
 
 /** Represents a permutation of a range of integers starting at 0 corresponding
@@ -12,46 +15,90 @@ class Permutation {
      *  form "(cccc) (cc) ..." where the c's are characters in ALPHABET, which
      *  is interpreted as a permutation in cycle notation.  Characters in the
      *  alphabet that are not included in any cycle map to themselves.
-     *  Whitespace is ignored. */
+     *  Whitespace is ignored.  Takes time linear in the lengths of CYCLES
+     *  and ALPHABET. */
     Permutation(String cycles, Alphabet alphabet) {
         _alphabet = alphabet;
         if (cycles == "()") {
             throw EnigmaException.error("Bad Cycle Given");
         }
-        String testString = cycles.trim();
-        testString = testString.replace("(", "");
-        testString = testString.replace(")", "");
-        for (int x = 0; x < testString.length(); x++) {
-            for (int y = x + 1; y < testString.length(); y++) {
-                if (testString.charAt(x) == testString.charAt(y)) {
-                    if (testString.charAt(x) != ' ') {
-                        throw EnigmaException.error("Duplicate Detected");
-                    }
+        String text = cycles.trim();
+        boolean[] seen = new boolean[size()];
+        HashSet<Integer> strangers = null;
+        int[] symbols = new int[text.length()];
+        int count = 0;
+        for (int k = 0; k < text.length(); ) {
+            int cp = text.codePointAt(k);
+            k += Character.charCount(cp);
+            if (cp == '(' || cp == ')') {
+                continue;
+            }
+            int index = cp == ' ' ? SEPARATOR : alphabet.indexOf(cp);
+            if (index >= 0) {
+                if (seen[index]) {
+                    throw EnigmaException.error("Duplicate Detected");
+                }
+                seen[index] = true;
+            } else if (index != SEPARATOR) {
+                if (strangers == null) {
+                    strangers = new HashSet<>();
+                }
+                if (!strangers.add(cp)) {
+                    throw EnigmaException.error("Duplicate Detected");
                 }
             }
+            symbols[count] = index;
+            count += 1;
         }
-        _cycles = testString.split(" ");
-        for (int x = 0; x < _cycles.length; x++) {
-            for (int y = 0; y < _cycles[x].length(); y++) {
-                if (!alphabet().contains(_cycles[x].charAt(y))) {
-                    throw EnigmaException.error("Character not in Alphabet");
-                }
+        if (strangers != null) {
+            throw EnigmaException.error("Character not in Alphabet");
+        }
+        compile(symbols, count);
+    }
+
+    /** A permutation of ALPHABET taking each index P to FORWARD[P], which
+     *  must contain each of 0 .. ALPHABET.size() - 1 exactly once. */
+    Permutation(int[] forward, Alphabet alphabet) {
+        _alphabet = alphabet;
+        if (forward.length != size()) {
+            throw error("Permutation has wrong size");
+        }
+        _forward = forward.clone();
+        _inverse = new int[size()];
+        Arrays.fill(_inverse, -1);
+        for (int x = 0; x < size(); x++) {
+            int to = _forward[x];
+            if (to < 0 || to >= size() || _inverse[to] >= 0) {
+                throw error("Not a permutation");
             }
+            _inverse[to] = x;
         }
     }
 
-    /** Add the cycle c0->c1->...->cm->c0 to the permutation, where CYCLE is
-     *  c0c1...cm. */
-    private void addCycle(String cycle) {
-        if (cycle.length() == 0) {
-            return;
+    /** Fill in _forward and _inverse from the alphabet indices in
+     *  SYMBOLS[0 .. COUNT-1], in which each run of indices between
+     *  SEPARATORs is a cycle, so that permute and invert become single
+     *  array reads. */
+    private void compile(int[] symbols, int count) {
+        _forward = new int[size()];
+        _inverse = new int[size()];
+        for (int x = 0; x < size(); x++) {
+            _forward[x] = x;
+            _inverse[x] = x;
         }
-        String[] addCycle = new String[_cycles.length + 1];
-        for (int x = 0; x < _cycles.length; x++) {
-            addCycle[x] = _cycles[x];
+        for (int start = 0; start < count; start++) {
+            int end = start;
+            while (end < count && symbols[end] != SEPARATOR) {
+                end++;
+            }
+            for (int y = start; y < end; y++) {
+                int from = symbols[y];
+                int to = symbols[y + 1 < end ? y + 1 : start];
+                _forward[from] = to;
+                _inverse[to] = from;
+            }
+            start = end;
         }
-        addCycle[_cycles.length + 1] = cycle;
-        _cycles = addCycle;
     }
 
     /** Return the value of P modulo the size of this permutation. */
@@ -71,60 +118,62 @@ class Permutation {
     /** Return the result of applying this permutation to P modulo the
      *  alphabet size. */
     int permute(int p) {
-        char charAtp = _alphabet.toChar(wrap(p));
-        for (int x = 0; x < _cycles.length; x++) {
-            for (int y = 0; y < _cycles[x].length(); y++) {
-                if (_cycles[x].charAt(y) == charAtp) {
-                    if (y == _cycles[x].length() - 1) {
-                        char permedChar = _cycles[x].charAt(0);
-                        p = _alphabet.toInt(permedChar);
-                        return p;
-                    } else {
-                        char permedChar = _cycles[x].charAt(y + 1);
-                        p = _alphabet.toInt(permedChar);
-                        return p;
-                    }
-
-                }
-            }
-        }
-        return p;
+        return _forward[wrap(p)];
     }
 
     /** Return the result of applying the inverse of this permutation
      *  to  C modulo the alphabet size. */
     int invert(int c) {
-        char charAtp = _alphabet.toChar(wrap(c));
-        for (int x = 0; x < _cycles.length; x++) {
-            for (int y = 0; y < _cycles[x].length(); y++) {
-                if (_cycles[x].charAt(y) == charAtp) {
-                    if (y == 0) {
-                        int cycleLength = _cycles[x].length();
-                        char permedChar = _cycles[x].charAt((cycleLength - 1));
-                        c = _alphabet.toInt(permedChar);
-                        return c;
-                    }
-                    char permedChar = _cycles[x].charAt(y - 1);
-                    c = _alphabet.toInt(permedChar);
-                    return c;
-                }
-            }
-        }
-        return c;
+        return _inverse[wrap(c)];
     }
 
 
     /** Return the result of applying this permutation to the index of P
      *  in ALPHABET, and converting the result to a character of ALPHABET. */
     char permute(char p) {
-        int index = _alphabet.toInt(p);
-        return _alphabet.toChar(permute(index));
+        return _alphabet.toChar(_forward[_alphabet.toInt(p)]);
     }
 
     /** Return the result of applying the inverse of this permutation to C. */
     char invert(char c) {
-        int index = _alphabet.toInt(c);
-        return _alphabet.toChar(invert(index));
+        return _alphabet.toChar(_inverse[_alphabet.toInt(c)]);
+    }
+
+    /** Return a table whose row D maps each P in 0..size() - 1 to
+     *  permute(P + D) - D modulo size(), or null if size() is too large
+     *  to tabulate.  Built on first use and shared by every rotor that
+     *  uses this permutation. */
+    int[][] shiftedForward() {
+        if (_shiftedForward == null && size() <= MAX_SHIFTED_SIZE) {
+            buildShifted();
+        }
+        return _shiftedForward;
+    }
+
+    /** As for shiftedForward(), but for invert. */
+    int[][] shiftedInverse() {
+        if (_shiftedForward == null && size() <= MAX_SHIFTED_SIZE) {
+            buildShifted();
+        }
+        return _shiftedInverse;
+    }
+
+    /** Fill in _shiftedForward and _shiftedInverse. */
+    private synchronized void buildShifted() {
+        if (_shiftedForward != null) {
+            return;
+        }
+        int n = size();
+        int[][] forward = new int[n][n];
+        int[][] inverse = new int[n][n];
+        for (int d = 0; d < n; d++) {
+            for (int p = 0; p < n; p++) {
+                forward[d][p] = wrap(_forward[wrap(p + d)] - d);
+                inverse[d][p] = wrap(_inverse[wrap(p + d)] - d);
+            }
+        }
+        _shiftedInverse = inverse;
+        _shiftedForward = forward;
     }
 
     /** Return the alphabet used to initialize this Permutation. */
@@ -135,22 +184,27 @@ class Permutation {
     /** Return true iff this permutation is a derangement (i.e., a
      *  permutation for which no value maps to itself). */
     boolean derangement() {
-        int totalLength = size();
-        int count = 0;
-        for (int x = 0; x < _cycles.length; x++) {
-            for (int y = 0; y < _cycles[x].length(); y++) {
-                count += 1;
+        for (int x = 0; x < _forward.length; x++) {
+            if (_forward[x] == x) {
+                return false;
             }
         }
-        if (count == totalLength) {
-            return true;
-        }
-        return false;
+        return true;
     }
 
     /** Alphabet of this permutation. */
     private Alphabet _alphabet;
-    /** Cycles of this Permutation. */
-    private String[] _cycles;
+    /** Marks the end of a cycle in the argument of compile. */
+    private static final int SEPARATOR = -2;
+    /** Image of each index under this permutation. */
+    private int[] _forward;
+    /** Image of each index under the inverse of this permutation. */
+    private int[] _inverse;
+    /** Largest alphabet for which shifted tables are built. */
+    private static final int MAX_SHIFTED_SIZE = 256;
+    /** Forward tables for each rotor offset, or null until needed. */
+    private volatile int[][] _shiftedForward;
+    /** Inverse tables for each rotor offset, or null until needed. */
+    private int[][] _shiftedInverse;
 
 }
@@ -198,4 +198,92 @@ public class PermutationTest {
         assertFalse(perm.derangement());
     }
 
+    @Test
+    public void reflectorTables() {
+        perm = new Permutation(NAVALA.get("B"), UPPER);
+        assertTrue(perm.derangement());
+        for (int i = 0; i < UPPER_STRING.length(); i += 1) {
+            assertEquals(i, perm.invert(perm.permute(i)));
+            assertEquals(perm.permute(i), perm.invert(i));
+        }
+        assertEquals(4, perm.permute(26));
+        assertEquals(4, perm.invert(-26));
+    }
+
+    @Test
+    public void wideAlphabet() {
+        String chars = "A\u4e00z\uffff0";
+        Alphabet wide = new Alphabet(chars);
+        for (int i = 0; i < chars.length(); i += 1) {
+            assertEquals(i, wide.toInt(chars.charAt(i)));
+            assertTrue(wide.contains(chars.charAt(i)));
+        }
+        assertFalse(wide.contains('B'));
+        assertFalse(wide.contains('\u4e01'));
+        perm = new Permutation("(A\u4e00\uffff)", wide);
+        assertEquals('\u4e00', perm.permute('A'));
+        assertEquals('\uffff', perm.invert('A'));
+    }
+
+    @Test(expected = EnigmaException.class)
+    public void duplicateAlphabet() {
+        new Alphabet("ABCDA");
+    }
+
+    @Test
+    public void testCodePoints() {
+        Alphabet emoji = new Alphabet("AB\uD83D\uDE00C");
+        assertEquals(4, emoji.size());
+        assertTrue(emoji.hasSupplementary());
+        assertEquals(0x1F600, emoji.toCodePoint(2));
+        assertEquals(2, emoji.toInt(0x1F600));
+        assertEquals(3, emoji.toInt('C'));
+        perm = new Permutation("(A\uD83D\uDE00) (BC)", emoji);
+        assertEquals(2, perm.permute(0));
+        assertEquals(0, perm.permute(2));
+        assertEquals(3, perm.invert(1));
+        try {
+            emoji.toChar(2);
+            fail("supplementary character returned as char");
+        } catch (EnigmaException excp) {
+            return;
+        }
+    }
+
+    @Test
+    public void testLargeAlphabet() {
+        int n = 20000;
+        StringBuilder chars = new StringBuilder();
+        for (int k = 0; k < n; k += 1) {
+            chars.append((char) (0x4E00 + k));
+        }
+        Alphabet cjk = new Alphabet(chars.toString());
+        assertFalse(cjk.hasSupplementary());
+        perm = new Permutation("(" + chars + ")", cjk);
+        for (int k = 0; k < n; k += 1) {
+            assertEquals((k + 1) % n, perm.permute(k));
+        }
+        try {
+            new Permutation("(" + chars + ") (\u4E00)", cjk);
+            fail("duplicate accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("Duplicate Detected", excp.getMessage());
+        }
+    }
+
+    @Test
+    public void testErrorOrder() {
+        try {
+            new Permutation("(A!) (B!)", UPPER);
+            fail("duplicate accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("Duplicate Detected", excp.getMessage());
+        }
+        try {
+            new Permutation("(A!) (BC)", UPPER);
+            fail("bad character accepted");
+        } catch (EnigmaException excp) {
+            assertEquals("Character not in Alphabet", excp.getMessage());
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package enigma;
+
+import java.io.PrintStream;
+
+/** A Tracer that prints each character's path as it happens, in the form
+ *  "[AXLE] H -> Q -> ... -> Z" (the settings of the rotors after the
+ *  reflector, then each signal), one line per character.
+ *  @author Nithish Rajan
+ */
+class PrintTracer implements Tracer {
+
+    /** A tracer printing to OUT the characters of ALPHABET. */
+    PrintTracer(PrintStream out, Alphabet alphabet) {
+        _out = out;
+        _alphabet = alphabet;
+    }
+
+    @Override
+    public void begin(int[] positions, int c) {
+        _out.printf("[");
+        for (int r = 1; r < positions.length; r += 1) {
+            _out.printf("%c", _alphabet.toCodePoint(positions[r]));
+        }
+        _out.printf("] %c -> ", _alphabet.toCodePoint(c));
+    }
+
+    @Override
+    public void step(int c) {
+        _out.printf("%c -> ", _alphabet.toCodePoint(c));
+    }
+
+    @Override
+    public void end(int c) {
+        _out.printf("%c%n", _alphabet.toCodePoint(c));
+    }
+
+    /** Destination of the trace. */
+    private final PrintStream _out;
+
+    /** Alphabet of the machine traced. */
+    private final Alphabet _alphabet;
+}
@@ -11,20 +11,10 @@ class Reflector extends FixedRotor {
      * is PERM. */
     Reflector(String name, Permutation perm) {
         super(name, perm);
-        _setting = 0;
     }
 
     @Override
     boolean reflecting() {
         return true;
     }
-
-    @Override
-    void set(int posn) {
-        if (posn != 0) {
-            throw error("reflector has only one position");
-        }
-    }
-    /** Setting of the Reflector. */
-    private int _setting;
 }
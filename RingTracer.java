@@ -0,0 +1,131 @@
+package enigma;
+
+import java.io.IOException;
+
+import static enigma.EnigmaException.*;
+
+/** A Tracer that records the paths of the most recent characters in a
+ *  fixed-size ring of ints, without formatting anything, so that they can
+ *  be dumped when wanted.  Each character's record is a BEGIN word
+ *  holding the number of slots, the settings of the slots, the character,
+ *  each signal, and an END word holding the converted character; when
+ *  the ring is full the oldest words are overwritten.
+ *  @author Nithish Rajan
+ */
+class RingTracer implements Tracer {
+
+    /** A tracer keeping the last CAPACITY words (rounded up to a power
+     *  of two) of the trace. */
+    RingTracer(int capacity) {
+        int size = MIN_CAPACITY;
+        if (capacity > MIN_CAPACITY) {
+            size = Integer.highestOneBit(capacity - 1) << 1;
+        }
+        _ring = new int[size];
+        _mask = size - 1;
+    }
+
+    @Override
+    public void begin(int[] positions, int c) {
+        put(BEGIN | positions.length);
+        for (int p : positions) {
+            put(p);
+        }
+        put(c);
+    }
+
+    @Override
+    public void step(int c) {
+        put(c);
+    }
+
+    @Override
+    public void end(int c) {
+        put(END | c);
+    }
+
+    /** Return the number of words recorded since I was made or cleared,
+     *  including those overwritten. */
+    long recorded() {
+        return _count;
+    }
+
+    /** Forget everything recorded. */
+    void clear() {
+        _count = 0;
+    }
+
+    /** Append to OUT, and return it, each character path still held in
+     *  full, oldest first, naming the characters of ALPHABET and in the
+     *  format of PrintTracer.  A path still being recorded is printed as
+     *  far as it goes. */
+    <T extends Appendable> T dump(T out, Alphabet alphabet) {
+        long k = Math.max(0, _count - _ring.length);
+        while (k < _count && (word(k) & BEGIN) == 0) {
+            k += 1;
+        }
+        try {
+            while (k < _count) {
+                int slots = word(k) & ~BEGIN;
+                if (k + slots + 1 >= _count) {
+                    break;
+                }
+                out.append('[');
+                for (int r = 1; r < slots; r += 1) {
+                    append(out, alphabet, word(k + 1 + r));
+                }
+                out.append("] ");
+                append(out, alphabet, word(k + 1 + slots));
+                for (k += slots + 2; k < _count; k += 1) {
+                    int w = word(k);
+                    out.append(" -> ");
+                    if ((w & END) != 0) {
+                        append(out, alphabet, w & ~END);
+                        out.append(System.lineSeparator());
+                        k += 1;
+                        break;
+                    }
+                    append(out, alphabet, w);
+                }
+            }
+        } catch (IOException excp) {
+            throw error("could not write trace");
+        }
+        return out;
+    }
+
+    /** Return word K of the trace, which must still be held. */
+    private int word(long k) {
+        return _ring[(int) k & _mask];
+    }
+
+    /** Record W as the next word. */
+    private void put(int w) {
+        _ring[(int) _count & _mask] = w;
+        _count += 1;
+    }
+
+    /** Append the character of ALPHABET with index C to OUT. */
+    private static void append(Appendable out, Alphabet alphabet, int c)
+        throws IOException {
+        out.append(new String(Character.toChars(alphabet.toCodePoint(c))));
+    }
+
+    /** Smallest ring. */
+    private static final int MIN_CAPACITY = 16;
+
+    /** Marks the first word of a character's record. */
+    private static final int BEGIN = 1 << 31;
+
+    /** Marks the last word of a character's record. */
+    private static final int END = 1 << 30;
+
+    /** The most recent words of the trace: word K is at K & _mask. */
+    private final int[] _ring;
+
+    /** Size of _ring less one. */
+    private final int _mask;
+
+    /** Number of words recorded. */
+    private long _count;
+}
@@ -2,7 +2,11 @@ package enigma;
 
 import static enigma.EnigmaException.*;
 
-/** Superclass that represents a rotor in the enigma machine.
+/** Superclass that represents a rotor in the enigma machine.  A Rotor
+ *  is only a specification: its name, wiring and notches.  It has no
+ *  setting of its own, so any number of Machines may share it; each
+ *  Machine keeps the settings and ring settings of its slots, and passes
+ *  the resulting offset to convertForward and convertBackward.
  *  @author Nithish Rajan
  */
 class Rotor {
@@ -11,8 +15,6 @@ class Rotor {
     Rotor(String name, Permutation perm) {
         _name = name;
         _permutation = perm;
-        _setting = 0;
-        _ringSetting = "";
     }
 
     /** Return my name. */
@@ -45,45 +47,26 @@ class Rotor {
         return false;
     }
 
-    /** Return my current setting. */
-    int setting() {
-        return _setting;
-    }
-
-    /** Set setting() to POSN.  */
-    void set(int posn) {
-        _setting = posn % alphabet().size();
-    }
-
-    /** Set setting() to character CPOSN. */
-    void set(char cposn) {
-        _setting = (alphabet().toInt(cposn)) % alphabet().size();
-    }
-
     /** Return the conversion of P (an integer in the range 0..size() - 1)
-     *  according to my permutation. */
-    int convertForward(int p) {
-        int d = _setting - _intRing;
-        int comingIn = permutation().wrap(p + d);
-        int permutation = permutation().permute(comingIn) - d;
-        int result = permutation().wrap(permutation);
-        if (Main.verbose()) {
-            System.err.printf("%c -> ", alphabet().toChar(result));
+     *  according to my permutation when my setting less my ring setting
+     *  is D (also in the range 0..size() - 1). */
+    int convertForward(int p, int d) {
+        int[][] table = permutation().shiftedForward();
+        if (table != null) {
+            return table[d][p];
         }
-        return result;
+        return permutation().wrap(permutation().permute(p + d) - d);
     }
 
     /** Return the conversion of E (an integer in the range 0..size() - 1)
-     *  according to the inverse of my permutation. */
-    int convertBackward(int e) {
-        int d = _setting - _intRing;
-        int comingIn = permutation().wrap(e + d);
-        int inversePermutation = permutation().invert(comingIn) - d;
-        int result = permutation().wrap(inversePermutation);
-        if (Main.verbose()) {
-            System.err.printf("%c -> ", alphabet().toChar(result));
+     *  according to the inverse of my permutation when my setting less my
+     *  ring setting is D. */
+    int convertBackward(int e, int d) {
+        int[][] table = permutation().shiftedInverse();
+        if (table != null) {
+            return table[d][e];
         }
-        return result;
+        return permutation().wrap(permutation().invert(e + d) - d);
     }
 
     /** Returns the positions of the notches, as a string giving the letters
@@ -92,22 +75,6 @@ class Rotor {
         return "";
     }
 
-    /** Returns true iff I am positioned to allow the rotor to my left
-     *  to advance. */
-    boolean atNotch() {
-        return false;
-    }
-
-    /** Advance me one position, if possible. By default, does nothing. */
-    void advance() {
-    }
-
-    /** Set Ring Setting S to passed in String. */
-    void setRingSetting(String S) {
-        _ringSetting = S;
-        _intRing = alphabet().toInt(_ringSetting.charAt(0));
-    }
-
     @Override
     public String toString() {
         return "Rotor " + _name;
@@ -119,13 +86,4 @@ class Rotor {
     /** The permutation implemented by this rotor in its 0 position. */
     private Permutation _permutation;
 
-    /** The setting given for this Rotor. */
-    private int _setting;
-
-    /** The ring setting for each rotor. */
-    private String _ringSetting;
-
-    /** The int-ring setting for each rotor. */
-    private int _intRing;
-
 }
@@ -0,0 +1,183 @@
+package enigma;
+
+import java.io.IOException;
+
+import java.lang.reflect.Method;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** A local encryption service.  A Server loads its Configuration once and
+ *  accepts connections on a loopback TCP port, serving each on a thread
+ *  of its own (a virtual thread where the runtime has them) with its own
+ *  Machine.
+ *
+ *  The protocol is a line protocol like the input to Main.  A client
+ *  sends setting lines ("* B Beta III IV I AXLE (YF)") and message lines,
+ *  ended by "\n" or "\r\n", and gets back exactly one line for each line
+ *  it sends, in order: "*" for a setting line, the conversion of a message
+ *  line in groups of five, or "* Error: " followed by a description of
+ *  what was wrong with the line.  No alphabet contains '*', so no
+ *  conversion can be mistaken for the others.  Each message line continues
+ *  the message begun by the last setting line that was accepted; a line in
+ *  error, whether a setting or a message, leaves the machine as it was.
+ *  Clients need not wait for replies before sending more lines, and
+ *  replies are sent whenever the server has no more complete lines to
+ *  read.
+ *  @author Nithish Rajan
+ */
+class Server {
+
+    /** A server for machines described by CONFIG, listening on loopback
+     *  port PORT (or on any free port if PORT is 0). */
+    Server(Configuration config, int port) {
+        this(config, port, null);
+    }
+
+    /** A server as for Server(CONFIG, PORT) that records the work of its
+     *  sessions in STATS, if it is not null. */
+    Server(Configuration config, int port, Stats stats) {
+        _config = config;
+        _stats = stats;
+        try {
+            _socket = new ServerSocket();
+            _socket.setReuseAddress(true);
+            _socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                               port));
+        } catch (IOException excp) {
+            throw EnigmaException.error("could not listen on port %d", port);
+        }
+        _sessions = newExecutor();
+    }
+
+    /** Return the port on which I listen. */
+    int port() {
+        return _socket.getLocalPort();
+    }
+
+    /** Accept and serve connections until close() is called. */
+    void serve() {
+        try {
+            while (true) {
+                Socket client = _socket.accept();
+                _sessions.execute(() -> session(client));
+            }
+        } catch (IOException excp) {
+            if (!_socket.isClosed()) {
+                throw EnigmaException.error("could not accept connections");
+            }
+        } finally {
+            _sessions.shutdown();
+        }
+    }
+
+    /** Stop accepting connections.  Connections already open are served
+     *  until their clients close them. */
+    void close() {
+        try {
+            _socket.close();
+        } catch (IOException excp) {
+            return;
+        }
+    }
+
+    /** Serve the requests sent over CLIENT until it is closed. */
+    private void session(Socket client) {
+        try (Socket socket = client) {
+            socket.setTcpNoDelay(true);
+            MessageInput in =
+                MessageInput.open(socket.getInputStream(), SESSION_BUFFER);
+            MessageOutput out =
+                MessageOutput.open(socket.getOutputStream(), SESSION_BUFFER);
+            Machine machine = new Machine(_config);
+            SettingParser settings =
+                new SettingParser(_config, "request", _stats);
+            boolean keyed = false;
+            char[] converted = new char[0];
+            while (in.nextLine()) {
+                try {
+                    if (in.isSetting()) {
+                        Machine next = machine.copy();
+                        settings.setUp(next, in.lineChars(), in.lineStart(),
+                                       in.lineStart() + in.length(),
+                                       in.lineNumber());
+                        machine = next;
+                        keyed = true;
+                        out.println("*");
+                    } else if (!keyed) {
+                        throw EnigmaException.error("no setting line");
+                    } else {
+                        int len = in.messageLength();
+                        if (converted.length < 2 * len) {
+                            converted = new char[2 * len];
+                        }
+                        long position = machine.position();
+                        ConvertEvent event = new ConvertEvent();
+                        event.begin();
+                        long start = System.nanoTime();
+                        int count;
+                        try {
+                            count = machine.convertCodePoints(in.message(), 0,
+                                                              len, converted,
+                                                              0);
+                        } catch (EnigmaException excp) {
+                            machine.seek(position);
+                            throw excp;
+                        }
+                        if (_stats != null) {
+                            _stats.converted(len, System.nanoTime() - start);
+                        }
+                        if (event.shouldCommit()) {
+                            event.length = len;
+                            event.commit();
+                        }
+                        out.printMessageLine(converted, count);
+                    }
+                } catch (EnigmaException excp) {
+                    out.println("* Error: " + excp.getMessage());
+                }
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            if (_stats != null) {
+                _stats.moved(machine.moves());
+            }
+            out.flush();
+        } catch (IOException | EnigmaException excp) {
+            return;
+        }
+    }
+
+    /** Return an executor running each task on a new virtual thread, or,
+     *  if this runtime lacks them, on a thread from a cached pool. */
+    private static ExecutorService newExecutor() {
+        try {
+            Method virtual =
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException excp) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /** Size of the input and output buffers of each connection. */
+    private static final int SESSION_BUFFER = 1 << 16;
+
+    /** Alphabet, slots and available rotors of every session's machine. */
+    private final Configuration _config;
+
+    /** Records the work of the sessions, or null. */
+    private final Stats _stats;
+
+    /** Socket on which connections are accepted. */
+    private final ServerSocket _socket;
+
+    /** Runs the sessions. */
+    private final ExecutorService _sessions;
+}
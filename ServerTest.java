@@ -0,0 +1,99 @@
+package enigma;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the Server class.
+ *  @author Nithish Rajan
+ */
+public class ServerTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    /** A configuration with the naval rotors, five slots and three
+     *  pawls. */
+    private static final Configuration CONFIG =
+        TestUtils.navalConfiguration(new Alphabet(TestUtils.UPPER_STRING),
+                                     5, 3);
+
+    /** Send all of REQUESTS at once to a new server and return its replies,
+     *  one per line of REQUESTS. */
+    private List<String> exchange(String requests) throws IOException {
+        Server server = new Server(CONFIG, 0);
+        Thread accepter = new Thread(server::serve);
+        accepter.start();
+        List<String> replies = new ArrayList<>();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+                                        server.port())) {
+            Charset charset = Charset.defaultCharset();
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.getBytes(charset));
+            out.flush();
+            socket.shutdownOutput();
+            BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), charset));
+            for (String line = in.readLine(); line != null;
+                 line = in.readLine()) {
+                replies.add(line);
+            }
+        } finally {
+            server.close();
+        }
+        return replies;
+    }
+
+    @Test
+    public void testPipelined() throws IOException {
+        List<String> replies =
+            exchange("* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)\n"
+                     + "FROM HIS SHOULDER HIAWATHA\r\n"
+                     + "HELLO WORLD!\n"
+                     + "TOOK THE\n"
+                     + "* B Beta III IV I AXLE (HQ) (EX) (IP) (TR) (BY)\n"
+                     + "QVPQS OKOIL PUBKJ ZPISF XDW\n");
+        assertEquals(6, replies.size());
+        assertEquals("*", replies.get(0));
+        assertEquals("QVPQS OKOIL PUBKJ ZPISF XDW", replies.get(1));
+        assertEquals("* Error: Character not in Alphabet.", replies.get(2));
+        assertEquals("BHCNS CX", replies.get(3));
+        assertEquals("*", replies.get(4));
+        assertEquals("FROMH ISSHO ULDER HIAWA THA", replies.get(5));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        List<String> replies =
+            exchange("HELLO\n"
+                     + "* B Beta III IV X AXLE\n"
+                     + "HELLO\n"
+                     + "* B Beta III IV I AXLE\n"
+                     + "HELLO\n"
+                     + "* B Beta III I X AXLE (YF)\n"
+                     + "HELLO\n");
+        assertEquals(7, replies.size());
+        assertEquals("* Error: no setting line", replies.get(0));
+        assertEquals("* Error: request:2:17: Bad Rotor Name!",
+                     replies.get(1));
+        assertEquals("* Error: no setting line", replies.get(2));
+        assertEquals("*", replies.get(3));
+        assertTrue(replies.get(4).matches("[A-Z]{5}"));
+        assertTrue(replies.get(5).startsWith("* Error: request:6:"));
+        List<String> unbroken =
+            exchange("* B Beta III IV I AXLE\n" + "HELLO\n" + "HELLO\n");
+        assertEquals(unbroken.get(2), replies.get(6));
+    }
+}
@@ -0,0 +1,69 @@
+package enigma;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A JDK Flight Recorder event for applying a setting line to a
+ *  Machine.
+ *  @author Nithish Rajan
+ */
+@Name("enigma.SetUp")
+@Label("Setting Line")
+@Category("Enigma")
+@Description("Application of a setting line to a machine")
+class SetUpEvent extends jdk.jfr.Event {
+
+    /** Fill in my fields for setting line LINE of the source named SOURCE,
+     *  which has just set up M. */
+    void set(String source, int line, Machine M) {
+        this.source = source;
+        this.line = line;
+        Alphabet alphabet = M.alphabet();
+        StringBuilder names = new StringBuilder();
+        StringBuilder settings = new StringBuilder();
+        StringBuilder rings = new StringBuilder();
+        for (int k = 0; k < M.numRotors(); k += 1) {
+            names.append(k == 0 ? "" : " ").append(M.getRotor(k).name());
+            if (k > 0) {
+                settings.appendCodePoint(alphabet.toCodePoint(M.setting(k)));
+                rings.appendCodePoint(alphabet.toCodePoint(M.ring(k)));
+            }
+        }
+        rotors = names.toString();
+        setting = settings.toString();
+        ring = rings.toString();
+        int moved = 0;
+        for (int c = 0; c < alphabet.size(); c += 1) {
+            if (M.plugboard().permute(c) != c) {
+                moved += 1;
+            }
+        }
+        plugs = moved / 2;
+    }
+
+    /** Name of the input holding the setting line. */
+    @Label("Source")
+    String source;
+
+    /** Line number of the setting line. */
+    @Label("Line")
+    int line;
+
+    /** Names of the rotors, reflector first. */
+    @Label("Rotors")
+    String rotors;
+
+    /** Settings of the rotors after the reflector. */
+    @Label("Setting")
+    String setting;
+
+    /** Ring settings of the rotors after the reflector. */
+    @Label("Ring Setting")
+    String ring;
+
+    /** Number of pairs of characters swapped by the plugboard. */
+    @Label("Plugboard Pairs")
+    int plugs;
+}
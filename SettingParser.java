@@ -0,0 +1,203 @@
+package enigma;
+
+/** Reads setting lines ("* B Beta III IV I AXLE (YF) (ZH)") and applies
+ *  them to Machines.  A SettingParser keeps the state for reading one
+ *  line at a time, so each thread setting up machines needs its own;
+ *  any number of them may share a Configuration.  For a configuration
+ *  whose alphabet is Alphabet.bytes(), the settings, ring settings and
+ *  plugboard pairs give each byte as two hexadecimal digits, as in
+ *  "* B Beta III IV I 0a1b2c3d 00000000 (0a41) (ff00)".
+ *  @author Nithish Rajan
+ */
+class SettingParser {
+
+    /** A parser for setting lines of the source named SOURCE, naming
+     *  rotors of CONFIG. */
+    SettingParser(Configuration config, String source) {
+        _configuration = config;
+        _alphabet = config.alphabet();
+        _bytes = _alphabet.isBytes();
+        _source = source;
+        _settings = new Lexer(source);
+        _ids = new int[config.numRotors()];
+        _columns = new int[config.numRotors()];
+        _seen = new int[config.rotors().size()];
+    }
+
+    /** A parser as for SettingParser(CONFIG, SOURCE) that records in
+     *  STATS, if it is not null, each setting line it applies, how long
+     *  that took, and the moves of the rotors of the machine as last
+     *  set. */
+    SettingParser(Configuration config, String source, Stats stats) {
+        this(config, source);
+        _stats = stats;
+    }
+
+    /** Set M according to the setting line in CHARS[START .. END-1], which
+     *  is line LINE of my source and must have the format specified in the
+     *  assignment. */
+    void setUp(Machine M, char[] chars, int start, int end, int line) {
+        SetUpEvent event = new SetUpEvent();
+        event.begin();
+        if (_stats == null) {
+            apply(M, chars, start, end, line);
+        } else {
+            long[] moves = M.moves();
+            long time = System.nanoTime();
+            apply(M, chars, start, end, line);
+            _stats.setUp(System.nanoTime() - time);
+            _stats.moved(moves);
+        }
+        if (event.shouldCommit()) {
+            event.set(_source, line, M);
+            event.commit();
+        }
+    }
+
+    /** Set M as for setUp(M, CHARS, START, END, LINE). */
+    private void apply(Machine M, char[] chars, int start, int end,
+                       int line) {
+        Lexer settings = _settings;
+        settings.reset(chars, start, end, line);
+        if (!settings.is('*')) {
+            throw settings.error("Wrong Settings Format");
+        }
+        settings.skip();
+        _setUps += 1;
+        for (int x = 0; x < _ids.length; x++) {
+            if (!settings.hasNext()) {
+                throw settings.error("Wrong number of Rotors passed in.");
+            }
+            int id = _configuration.id(settings.token());
+            if (id < 0) {
+                throw settings.error("Bad Rotor Name!");
+            }
+            if (_seen[id] == _setUps) {
+                throw settings.error("Duplicate Rotor");
+            }
+            _seen[id] = _setUps;
+            _ids[x] = id;
+            _columns[x] = settings.column();
+            settings.skip();
+        }
+        if (!settings.hasNext()) {
+            throw settings.error("General Error");
+        }
+        if (!_configuration.reflecting(_ids[0])) {
+            throw settings.error("1st rotor not reflector.", line,
+                                 _columns[0]);
+        }
+        try {
+            M.insertRotors(_ids);
+            M.setRotors(_bytes ? hexToken(settings) : settings.token());
+            settings.skip();
+            if (isRing(settings)) {
+                M.ringstellung(_bytes ? hexToken(settings)
+                               : settings.token());
+                settings.skip();
+            }
+        } catch (EnigmaException excp) {
+            throw settings.error(excp.getMessage());
+        }
+        int plugColumn = settings.column();
+        try {
+            M.setPlugboard(_bytes ? bytePlugboard(settings)
+                           : plugboard(settings));
+        } catch (EnigmaException excp) {
+            throw settings.error(excp.getMessage(), line, plugColumn);
+        }
+        for (int x = 1; x < _ids.length; x++) {
+            if (!_configuration.fits(_ids[x], x)) {
+                throw settings.error("Wrong Rotor Config.", line,
+                                     _columns[x]);
+            }
+        }
+    }
+
+    /** Return true iff the current token of SETTINGS is a ring
+     *  setting. */
+    private boolean isRing(Lexer settings) {
+        if (_bytes) {
+            return settings.length() == 2 * RING_LENGTH
+                && settings.isHex(0, 2 * RING_LENGTH);
+        }
+        return settings.isWord(RING_LENGTH);
+    }
+
+    /** Return the bytes given in hexadecimal by the current token of
+     *  SETTINGS. */
+    private String hexToken(Lexer settings) {
+        if (!settings.isHex(0, settings.length())) {
+            throw EnigmaException.error("Setting not in hexadecimal.");
+        }
+        return settings.hexText(0, settings.length());
+    }
+
+    /** Return the plugboard given by the pairs at the current token of
+     *  SETTINGS, consuming them. */
+    private Permutation plugboard(Lexer settings) {
+        _plugs.setLength(0);
+        while (settings.isPair()) {
+            _plugs.append(settings.token()).append(' ');
+            settings.skip();
+        }
+        return new Permutation(_plugs.toString(), _alphabet);
+    }
+
+    /** As for plugboard, but for pairs of bytes such as (0a41). */
+    private Permutation bytePlugboard(Lexer settings) {
+        int[] swaps = new int[_alphabet.size()];
+        for (int b = 0; b < swaps.length; b += 1) {
+            swaps[b] = b;
+        }
+        while (settings.isHexPair()) {
+            String pair = settings.hexText(1, settings.length() - 1);
+            int a = pair.charAt(0), b = pair.charAt(1);
+            if (a == b || swaps[a] != a || swaps[b] != b) {
+                throw EnigmaException.error("Duplicate Detected");
+            }
+            swaps[a] = b;
+            swaps[b] = a;
+            settings.skip();
+        }
+        return new Permutation(swaps, _alphabet);
+    }
+
+    /** Number of characters in a ring setting. */
+    private static final int RING_LENGTH = 4;
+
+    /** Alphabet, slots and available rotors of the machines set up. */
+    private final Configuration _configuration;
+
+    /** Alphabet of _configuration. */
+    private final Alphabet _alphabet;
+
+    /** True iff _alphabet is Alphabet.bytes(). */
+    private final boolean _bytes;
+
+    /** Name of my source. */
+    private final String _source;
+
+    /** Tokens of the setting line being read. */
+    private final Lexer _settings;
+
+    /** Numbers of the rotors named by the setting line being read, by
+     *  slot. */
+    private final int[] _ids;
+
+    /** Column of each rotor name in the setting line being read. */
+    private final int[] _columns;
+
+    /** _seen[ID] == _setUps iff rotor number ID has been named by the
+     *  setting line being read. */
+    private final int[] _seen;
+
+    /** Number of setting lines read. */
+    private int _setUps;
+
+    /** Records the setting lines applied, or null. */
+    private Stats _stats;
+
+    /** Plugboard pairs of the setting line being read. */
+    private final StringBuilder _plugs = new StringBuilder();
+}
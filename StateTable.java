@@ -0,0 +1,336 @@
+package enigma;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.zip.CRC32C;
+
+import static enigma.EnigmaException.*;
+
+/** The substitution applied by the rotors of a Machine (without its
+ *  plugboard) at every setting of its rotors, kept in a memory-mapped
+ *  file.  For a machine with N slots over an alphabet of SIZE characters
+ *  there are SIZE^(N-1) states, one per combination of settings of the
+ *  slots after the reflector; the state index is those settings read as
+ *  a number in base SIZE, the first slot after the reflector most
+ *  significant (see state).  For each state the file holds the image of
+ *  every character, so that lookups need no rotor arithmetic and the
+ *  tables never occupy the heap.  Files are mapped read-only once built,
+ *  so every process using the same file shares one copy in the page
+ *  cache.  A file whose header does not match the rotors and ring
+ *  settings of the machine is rebuilt.
+ *  @author Nithish Rajan
+ */
+class StateTable {
+
+    /** Return the tables for the rotors, settings of the reflector, and
+     *  ring settings of MACHINE, mapped from FILE.  If FILE does not hold
+     *  them, they are computed and FILE is replaced (atomically, so that
+     *  other processes see either the old file or the new one). */
+    static StateTable open(Machine machine, Path file) {
+        long fingerprint = fingerprint(machine);
+        StateTable result = map(file, fingerprint);
+        if (result == null) {
+            build(machine, file, fingerprint);
+            result = map(file, fingerprint);
+            if (result == null) {
+                throw error("could not read state tables from %s", file);
+            }
+        }
+        return result;
+    }
+
+    /** Return the number of states. */
+    long states() {
+        return _states;
+    }
+
+    /** Return the number of characters in the alphabet. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the index of the state of MACHINE's current settings.
+     *  MACHINE must have the rotors these tables were built for. */
+    long state(Machine machine) {
+        long result = 0;
+        for (int k = 1; k < machine.numRotors(); k += 1) {
+            result = result * _size + machine.setting(k);
+        }
+        return result;
+    }
+
+    /** Return the image of character index C under the rotors in state
+     *  STATE. */
+    int convert(long state, int c) {
+        if (state < 0 || state >= _states || c < 0 || c >= _size) {
+            throw error("State or character out of range.");
+        }
+        long pos = HEADER + (state * _size + c) * _width;
+        ByteBuffer segment = _segments[(int) (pos >>> SEGMENT_BITS)];
+        int off = (int) (pos & (SEGMENT - 1));
+        switch (_width) {
+        case Byte.BYTES:
+            return segment.get(off) & BYTE_MASK;
+        case Short.BYTES:
+            return segment.getChar(off);
+        default:
+            return segment.getInt(off);
+        }
+    }
+
+    /** Tables of SIZE characters and STATES states, whose entries are
+     *  WIDTH bytes, held in SEGMENTS. */
+    private StateTable(int size, long states, int width,
+                       MappedByteBuffer[] segments) {
+        _size = size;
+        _states = states;
+        _width = width;
+        _segments = segments;
+    }
+
+    /** Return the tables in FILE if its header records FINGERPRINT, and
+     *  otherwise null. */
+    private static StateTable map(Path file, long fingerprint) {
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                return null;
+            }
+            ByteBuffer header =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            int size = header.getInt();
+            int width = header.getInt();
+            long states = header.getLong();
+            if (header.getLong() != fingerprint
+                || channel.size() != length(size, states, width)) {
+                return null;
+            }
+            return new StateTable(size, states, width,
+                                  mapSegments(channel, channel.size(),
+                                              FileChannel.MapMode.READ_ONLY));
+        } catch (IOException excp) {
+            return null;
+        }
+    }
+
+    /** Compute the tables of MACHINE, whose fingerprint is FINGERPRINT,
+     *  and write them to FILE. */
+    private static void build(Machine machine, Path file, long fingerprint) {
+        int size = machine.alphabet().size();
+        int slots = machine.numRotors();
+        if (slots < 2) {
+            throw error("State tables need a rotor after the reflector.");
+        }
+        int width = size <= BYTE_MASK + 1 ? Byte.BYTES
+            : size <= Character.MAX_VALUE + 1 ? Short.BYTES : Integer.BYTES;
+        long states = 1;
+        for (int k = 1; k < slots; k += 1) {
+            if (states > MAX_ENTRIES / size / size) {
+                throw error("Too many states to tabulate.");
+            }
+            states *= size;
+        }
+        long length = length(size, states, width);
+        Path dir = file.toAbsolutePath().getParent();
+        try {
+            Path temp = Files.createTempFile(dir, ".enigma", SUFFIX);
+            try {
+                try (FileChannel channel =
+                     FileChannel.open(temp, StandardOpenOption.READ,
+                                      StandardOpenOption.WRITE)) {
+                    MappedByteBuffer[] segments =
+                        mapSegments(channel, length,
+                                    FileChannel.MapMode.READ_WRITE);
+                    ByteBuffer header = segments[0];
+                    header.putInt(0, MAGIC);
+                    header.putInt(Integer.BYTES, VERSION);
+                    header.putInt(2 * Integer.BYTES, size);
+                    header.putInt(3 * Integer.BYTES, width);
+                    header.putLong(4 * Integer.BYTES, states);
+                    header.putLong(4 * Integer.BYTES + Long.BYTES,
+                                   fingerprint);
+                    fill(machine,
+                         new StateTable(size, states, width, segments));
+                    for (MappedByteBuffer segment : segments) {
+                        segment.force();
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException excp) {
+            throw error("could not write state tables to %s", file);
+        }
+    }
+
+    /** Store into TABLE the substitution of MACHINE's rotors in each
+     *  state.  For each setting of the slots before the fast rotor, the
+     *  path through them and the reflector is computed once, and then
+     *  composed with the fast rotor at each of its settings. */
+    private static void fill(Machine machine, StateTable table) {
+        int size = table._size;
+        int last = machine.numRotors() - 1;
+        Rotor[] rotors = new Rotor[last + 1];
+        int[] shifts = new int[last + 1];
+        for (int k = 0; k <= last; k += 1) {
+            rotors[k] = machine.getRotor(k);
+            shifts[k] = -machine.ring(k);
+        }
+        shifts[0] += machine.setting(0);
+        int[] settings = new int[last + 1];
+        int[] slow = new int[size];
+        Rotor fast = rotors[last];
+        long pos = HEADER;
+        for (long s = 0; s < table._states; s += size) {
+            for (int c = 0; c < size; c += 1) {
+                int x = c;
+                for (int k = last - 1; k >= 0; k -= 1) {
+                    x = rotors[k].convertForward(x, shift(settings, shifts,
+                                                          k, size));
+                }
+                for (int k = 1; k < last; k += 1) {
+                    x = rotors[k].convertBackward(x, shift(settings, shifts,
+                                                           k, size));
+                }
+                slow[c] = x;
+            }
+            for (int f = 0; f < size; f += 1) {
+                settings[last] = f;
+                int d = shift(settings, shifts, last, size);
+                for (int c = 0; c < size; c += 1) {
+                    int x = fast.convertBackward(slow[fast.convertForward(c,
+                                                                          d)],
+                                                 d);
+                    table.put(pos, x);
+                    pos += table._width;
+                }
+            }
+            for (int k = last - 1; k > 0; k -= 1) {
+                settings[k] += 1;
+                if (settings[k] < size) {
+                    break;
+                }
+                settings[k] = 0;
+            }
+        }
+    }
+
+    /** Return the setting less the ring setting of slot K, as given by
+     *  SETTINGS and SHIFTS, in the range 0 .. SIZE - 1. */
+    private static int shift(int[] settings, int[] shifts, int k, int size) {
+        int d = (settings[k] + shifts[k]) % size;
+        return d < 0 ? d + size : d;
+    }
+
+    /** Store entry VALUE at byte POS of my file. */
+    private void put(long pos, int value) {
+        ByteBuffer segment = _segments[(int) (pos >>> SEGMENT_BITS)];
+        int off = (int) (pos & (SEGMENT - 1));
+        switch (_width) {
+        case Byte.BYTES:
+            segment.put(off, (byte) value);
+            break;
+        case Short.BYTES:
+            segment.putChar(off, (char) value);
+            break;
+        default:
+            segment.putInt(off, value);
+            break;
+        }
+    }
+
+    /** Return the segments of length LENGTH of CHANNEL, mapped in MODE. */
+    private static MappedByteBuffer[] mapSegments(FileChannel channel,
+                                                  long length,
+                                                  FileChannel.MapMode mode)
+        throws IOException {
+        int count = (int) ((length + SEGMENT - 1) >>> SEGMENT_BITS);
+        MappedByteBuffer[] result = new MappedByteBuffer[count];
+        for (int k = 0; k < count; k += 1) {
+            long start = (long) k << SEGMENT_BITS;
+            result[k] = channel.map(mode, start,
+                                    Math.min(SEGMENT, length - start));
+        }
+        return result;
+    }
+
+    /** Return the length of a file of STATES tables of SIZE entries of
+     *  WIDTH bytes. */
+    private static long length(int size, long states, int width) {
+        return HEADER + states * size * width;
+    }
+
+    /** Return a fingerprint of the rotors, reflector setting, and ring
+     *  settings of MACHINE, on which its tables depend. */
+    private static long fingerprint(Machine machine) {
+        int size = machine.alphabet().size();
+        ByteBuffer ints = ByteBuffer.allocate(Integer.BYTES * (size + 1));
+        CRC32C crc = new CRC32C();
+        ints.putInt(machine.setting(0));
+        for (int k = 0; k < machine.numRotors(); k += 1) {
+            if (k > 0) {
+                ints.putInt(machine.ring(k));
+            }
+            Permutation perm = machine.getRotor(k).permutation();
+            for (int p = 0; p < size; p += 1) {
+                ints.putInt(perm.permute(p));
+            }
+            ints.flip();
+            crc.update(ints);
+            ints.clear();
+        }
+        return ((long) size * machine.numRotors() << Integer.SIZE)
+            | crc.getValue();
+    }
+
+    /** Suffix of the temporary files in which tables are built. */
+    private static final String SUFFIX = ".states";
+
+    /** First word of a state table file: "ENGS". */
+    private static final int MAGIC = 0x454E4753;
+
+    /** Version of the state table format. */
+    private static final int VERSION = 1;
+
+    /** Bytes before the first table: magic, version, size, width, number
+     *  of states and fingerprint. */
+    private static final int HEADER = 4 * Integer.BYTES + 2 * Long.BYTES;
+
+    /** Log base 2 of SEGMENT. */
+    private static final int SEGMENT_BITS = 30;
+
+    /** Size of each mapped segment of a file.  Entries never straddle
+     *  segments, since HEADER and SEGMENT are multiples of every width. */
+    private static final long SEGMENT = 1L << SEGMENT_BITS;
+
+    /** Most entries tabulated. */
+    private static final long MAX_ENTRIES = 1L << 40;
+
+    /** Mask for the value of an unsigned byte. */
+    private static final int BYTE_MASK = 0xFF;
+
+    /** Number of characters in the alphabet. */
+    private final int _size;
+
+    /** Number of states. */
+    private final long _states;
+
+    /** Bytes in each entry. */
+    private final int _width;
+
+    /** The file, mapped in segments of SEGMENT bytes. */
+    private final MappedByteBuffer[] _segments;
+}
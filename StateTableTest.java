@@ -0,0 +1,82 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the StateTable class.
+ *  @author Nithish Rajan
+ */
+public class StateTableTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(10);
+
+    private static final Alphabet AZ = new Alphabet(TestUtils.UPPER_STRING);
+
+    /** A configuration of the naval rotors with four slots, so that
+     *  three rotors follow the reflector. */
+    private static final Configuration CONFIG =
+        TestUtils.navalConfiguration(AZ, 4, 3);
+
+    /** Return a machine of CONFIG with ring setting RING and no
+     *  plugboard. */
+    private Machine machine(String ring) {
+        Machine mach = new Machine(CONFIG);
+        mach.insertRotors(new String[] { "B", "III", "IV", "I" });
+        mach.setRotors("AXL");
+        mach.ringstellung(ring);
+        mach.setPlugboard(new Permutation("", AZ));
+        return mach;
+    }
+
+    /** Check that TABLE agrees with a copy of MACH over a message of
+     *  random characters. */
+    private void checkAgainst(Machine mach, StateTable table) {
+        Random random = new Random(25);
+        mach = mach.copy();
+        for (int k = 0; k < 5000; k += 1) {
+            int c = random.nextInt(AZ.size());
+            int expected = mach.convert(c);
+            assertEquals(expected, table.convert(table.state(mach), c));
+        }
+    }
+
+    @Test
+    public void testTables() throws IOException {
+        Path dir = Files.createTempDirectory("enigma");
+        Path file = dir.resolve("tables.states");
+        try {
+            Machine mach = machine("AAA");
+            StateTable table = StateTable.open(mach, file);
+            assertEquals(26 * 26 * 26, table.states());
+            assertEquals(26, table.size());
+            checkAgainst(mach, table);
+
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            checkAgainst(mach, StateTable.open(mach, file));
+            assertEquals(modified,
+                         Files.getLastModifiedTime(file).toMillis());
+
+            Machine ringed = machine("BQZ");
+            checkAgainst(ringed, StateTable.open(ringed, file));
+            try {
+                table.convert(table.states(), 0);
+                fail("Expected an exception");
+            } catch (EnigmaException excp) {
+                assertEquals("State or character out of range.",
+                             excp.getMessage());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
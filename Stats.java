@@ -0,0 +1,166 @@
+package enigma;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import static enigma.EnigmaException.*;
+
+/** Counters of the work done by the machines of one configuration: the
+ *  characters and message lines converted, the setting lines applied,
+ *  the moves of the rotor in each slot, and histograms of the times
+ *  taken to apply a setting line and to convert a message line.  Any
+ *  number of threads may record at once; the counters are striped
+ *  (LongAdder), so that they do not contend, and nothing locks.  Rotor
+ *  moves are not counted as they happen but found by Machine.moves when
+ *  a machine is set again or finishes.
+ *  @author Nithish Rajan
+ */
+class Stats implements StatsMBean {
+
+    /** Counters for machines with SLOTS slots. */
+    Stats(int slots) {
+        _moves = new LongAdder[slots];
+        for (int k = 0; k < slots; k += 1) {
+            _moves[k] = new LongAdder();
+        }
+    }
+
+    /** Register me with the platform MBean server as NAME, so that JMX
+     *  clients can read me. */
+    void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(this, new ObjectName(NAME));
+        } catch (JMException excp) {
+            throw error("could not register statistics: %s",
+                        excp.getMessage());
+        }
+    }
+
+    /** Unregister me from the platform MBean server. */
+    void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                .unregisterMBean(new ObjectName(NAME));
+        } catch (JMException excp) {
+            throw error("could not unregister statistics: %s",
+                        excp.getMessage());
+        }
+    }
+
+    /** Record that a setting line was applied, taking NANOS
+     *  nanoseconds. */
+    void setUp(long nanos) {
+        _settingLines.increment();
+        _setUpLatency.record(nanos);
+    }
+
+    /** Record that a message line of CHARS characters was converted,
+     *  taking NANOS nanoseconds.  Blank lines (CHARS == 0) are not
+     *  messages, and are not recorded. */
+    void converted(long chars, long nanos) {
+        if (chars == 0) {
+            return;
+        }
+        _characters.add(chars);
+        _messages.increment();
+        _convertLatency.record(nanos);
+    }
+
+    /** Record the moves of the rotors in each slot, MOVES, as returned by
+     *  Machine.moves.  The machine must be set again, or not used again,
+     *  before its moves are next recorded. */
+    void moved(long[] moves) {
+        for (int k = 0; k < moves.length && k < _moves.length; k += 1) {
+            _moves[k].add(moves[k]);
+        }
+    }
+
+    @Override
+    public long getCharactersConverted() {
+        return _characters.sum();
+    }
+
+    @Override
+    public long getMessagesProcessed() {
+        return _messages.sum();
+    }
+
+    @Override
+    public long getSettingLinesApplied() {
+        return _settingLines.sum();
+    }
+
+    @Override
+    public long[] getRotorMoves() {
+        long[] result = new long[_moves.length];
+        for (int k = 0; k < result.length; k += 1) {
+            result[k] = _moves[k].sum();
+        }
+        return result;
+    }
+
+    @Override
+    public String getSetUpLatency() {
+        return _setUpLatency.summary();
+    }
+
+    @Override
+    public String getConvertLatency() {
+        return _convertLatency.summary();
+    }
+
+    @Override
+    public void reset() {
+        _characters.reset();
+        _messages.reset();
+        _settingLines.reset();
+        for (LongAdder moves : _moves) {
+            moves.reset();
+        }
+        _setUpLatency.reset();
+        _convertLatency.reset();
+    }
+
+    /** Return a summary of my counters, one per line. */
+    String summary() {
+        StringBuilder moves = new StringBuilder();
+        for (long count : getRotorMoves()) {
+            moves.append(' ').append(count);
+        }
+        return String.format("characters converted: %d%n"
+                             + "messages processed:   %d%n"
+                             + "setting lines:        %d%n"
+                             + "rotor moves by slot: %s%n"
+                             + "setting latency:      %s%n"
+                             + "message latency:      %s%n",
+                             getCharactersConverted(),
+                             getMessagesProcessed(),
+                             getSettingLinesApplied(), moves,
+                             getSetUpLatency(), getConvertLatency());
+    }
+
+    /** Name under which I am registered. */
+    static final String NAME = "enigma:type=Stats";
+
+    /** Number of characters converted. */
+    private final LongAdder _characters = new LongAdder();
+
+    /** Number of message lines converted. */
+    private final LongAdder _messages = new LongAdder();
+
+    /** Number of setting lines applied. */
+    private final LongAdder _settingLines = new LongAdder();
+
+    /** Number of moves of the rotor in each slot. */
+    private final LongAdder[] _moves;
+
+    /** Times taken to apply setting lines. */
+    private final LatencyHistogram _setUpLatency = new LatencyHistogram();
+
+    /** Times taken to convert message lines. */
+    private final LatencyHistogram _convertLatency = new LatencyHistogram();
+}
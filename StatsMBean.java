@@ -0,0 +1,30 @@
+package enigma;
+
+/** The management interface of Stats, through which JMX clients such as
+ *  jconsole read the counters of a running simulator.  It is public
+ *  because JMX requires management interfaces to be.
+ *  @author Nithish Rajan
+ */
+public interface StatsMBean {
+
+    /** Return the number of characters converted. */
+    long getCharactersConverted();
+
+    /** Return the number of message lines converted. */
+    long getMessagesProcessed();
+
+    /** Return the number of setting lines applied to machines. */
+    long getSettingLinesApplied();
+
+    /** Return the number of times the rotor in each slot has moved. */
+    long[] getRotorMoves();
+
+    /** Return a summary of the times taken to apply setting lines. */
+    String getSetUpLatency();
+
+    /** Return a summary of the times taken to convert message lines. */
+    String getConvertLatency();
+
+    /** Set every counter and histogram back to zero. */
+    void reset();
+}
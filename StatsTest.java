@@ -0,0 +1,178 @@
+package enigma;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.junit.Rule;
+import org.junit.rules.Timeout;
+import static org.junit.Assert.*;
+
+/** The suite of all JUnit tests for the Stats and LatencyHistogram
+ *  classes, for Machine.moves, and for Main with --stats.
+ *  @author Nithish Rajan
+ */
+public class StatsTest {
+
+    /** Testing time limit. */
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(5);
+
+    private static final Alphabet AZ = new Alphabet(TestUtils.UPPER_STRING);
+
+    /** Return a configuration of the naval rotors with five slots, in
+     *  which moving rotors III, IV and I have notches NOTCHES. */
+    private Configuration config(String... notches) {
+        HashMap<String, String> all = new HashMap<>(TestUtils.NAVAL_NOTCHES);
+        String[] names = { "III", "IV", "I" };
+        for (int k = 0; k < names.length; k += 1) {
+            all.put(names[k], notches[k]);
+        }
+        return TestUtils.navalConfiguration(AZ, 5, 3, all);
+    }
+
+    /** Return the moves of each slot of a machine of CONFIG set to
+     *  SETTING while it converts COUNT characters, counted one by one. */
+    private long[] countMoves(Configuration config, String setting,
+                              int count) {
+        Machine mach = new Machine(config);
+        mach.insertRotors(new String[] { "B", "Beta", "III", "IV", "I" });
+        mach.setRotors(setting);
+        mach.setPlugboard(new Permutation("", AZ));
+        long[] result = new long[mach.numRotors()];
+        for (int t = 0; t < count; t += 1) {
+            int[] before = new int[result.length];
+            for (int k = 0; k < result.length; k += 1) {
+                before[k] = mach.setting(k);
+            }
+            mach.convert(0);
+            for (int k = 0; k < result.length; k += 1) {
+                if (mach.setting(k) != before[k]) {
+                    result[k] += 1;
+                }
+            }
+        }
+        assertArrayEquals(result, mach.moves());
+        return result;
+    }
+
+    @Test
+    public void testMoves() {
+        Configuration naval = config("V", "J", "Q");
+        long[] moves = countMoves(naval, "AUIQ", 2000);
+        assertEquals(0, moves[0]);
+        assertEquals(0, moves[1]);
+        assertEquals(2000, moves[4]);
+        assertTrue(moves[2] > 0 && moves[3] > moves[2]);
+        countMoves(config("AB", "JK", "QR"), "AUIQ", 2000);
+        assertEquals(0, new Machine(naval).moves().length);
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+        for (long v = 1; v <= 1000; v += 1) {
+            histogram.record(v);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(1000, histogram.max());
+        long median = histogram.percentile(50);
+        assertTrue(median >= 500 && median <= 500 + 500 / 8);
+        assertEquals(1000, histogram.percentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        for (long v : new long[] { 0, 7, 8, 9, 1 << 20, Long.MAX_VALUE }) {
+            int b = LatencyHistogram.bucket(v);
+            assertTrue(LatencyHistogram.upper(b) >= v);
+            assertTrue(b == 0 || LatencyHistogram.upper(b - 1) < v);
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        Stats stats = new Stats(5);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t += 1) {
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < 10000; k += 1) {
+                    stats.converted(3, k);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, stats.getMessagesProcessed());
+        assertEquals(120000, stats.getCharactersConverted());
+        assertTrue(stats.getConvertLatency().startsWith("40000 times"));
+    }
+
+    @Test
+    public void testSettingParser() {
+        Configuration naval = config("V", "J", "Q");
+        Stats stats = new Stats(naval.numRotors());
+        SettingParser parser = new SettingParser(naval, "test", stats);
+        Machine mach = new Machine(naval);
+        char[] line = "* B Beta III IV I AXLE (YF) (ZH)".toCharArray();
+        parser.setUp(mach, line, 0, line.length, 1);
+        mach.convert("HELLOWORLD");
+        parser.setUp(mach, line, 0, line.length, 2);
+        mach.convert("HELLO");
+        stats.moved(mach.moves());
+        assertEquals(2, stats.getSettingLinesApplied());
+        assertEquals(15, stats.getRotorMoves()[4]);
+        assertTrue(stats.getSetUpLatency().startsWith("2 times"));
+        stats.reset();
+        assertEquals(0, stats.getSettingLinesApplied());
+        assertEquals(0, stats.getRotorMoves()[4]);
+    }
+
+    @Test
+    public void testRepeatedMain() throws IOException, JMException {
+        Path dir = Files.createTempDirectory("enigma");
+        Path config = dir.resolve("naval.conf");
+        Path input = dir.resolve("naval.in");
+        Path output = dir.resolve("naval.out");
+        Files.writeString(config,
+                          "ABCDEFGHIJKLMNOPQRSTUVWXYZ 5 3\n"
+                          + "B R" + TestUtils.NAVALA.get("B") + "\n"
+                          + "Beta N" + TestUtils.NAVALA.get("Beta") + "\n"
+                          + "III MV" + TestUtils.NAVALA.get("III") + "\n"
+                          + "IV MJ" + TestUtils.NAVALA.get("IV") + "\n"
+                          + "I MQ" + TestUtils.NAVALA.get("I") + "\n");
+        Files.writeString(input, "* B Beta III IV I AXLE (YF) (ZH)\n"
+                          + "HELLO WORLD\n");
+        PrintStream err = System.err;
+        ByteArrayOutputStream summaries = new ByteArrayOutputStream();
+        try {
+            System.setErr(new PrintStream(summaries, true));
+            for (int run = 0; run < 2; run += 1) {
+                Main.main("--stats", config.toString(), input.toString(),
+                          output.toString());
+                assertFalse(ManagementFactory.getPlatformMBeanServer()
+                            .isRegistered(new ObjectName(Stats.NAME)));
+            }
+        } finally {
+            System.setErr(err);
+            for (String name : new String[] {
+                    "naval.conf", "naval.conf.compiled", "naval.in",
+                    "naval.out" }) {
+                Files.deleteIfExists(dir.resolve(name));
+            }
+            Files.delete(dir);
+        }
+        String text = summaries.toString(Charset.defaultCharset());
+        assertEquals(2, text.split("characters converted: 10", -1).length - 1);
+    }
+}
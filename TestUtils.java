@@ -1,6 +1,9 @@
 package enigma;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /** Utility definitions for use in unit tests.
  *  @author P. N. Hilfinger
@@ -39,6 +42,56 @@ class TestUtils {
                   + "(PW) (QZ) (SX) (UY)");
     }
 
+    /** The notches of the naval moving rotors. */
+    static final HashMap<String, String> NAVAL_NOTCHES = new HashMap<>();
+    static {
+        NAVAL_NOTCHES.put("I", "Q");
+        NAVAL_NOTCHES.put("II", "E");
+        NAVAL_NOTCHES.put("III", "V");
+        NAVAL_NOTCHES.put("IV", "J");
+        NAVAL_NOTCHES.put("V", "Z");
+        NAVAL_NOTCHES.put("VI", "ZM");
+        NAVAL_NOTCHES.put("VII", "ZM");
+        NAVAL_NOTCHES.put("VIII", "ZM");
+    }
+
+    /** Return a configuration over ALPHABET with SLOTS slots and PAWLS
+     *  pawls, and all the naval rotors of NAVALA: reflectors B and C,
+     *  fixed rotors Beta and Gamma, and moving rotors I-VIII with their
+     *  NAVAL_NOTCHES. */
+    static Configuration navalConfiguration(Alphabet alphabet, int slots,
+                                            int pawls) {
+        return navalConfiguration(alphabet, slots, pawls, NAVAL_NOTCHES);
+    }
+
+    /** Return a configuration as for navalConfiguration(ALPHABET, SLOTS,
+     *  PAWLS), but in which the moving rotors have the notches given by
+     *  NOTCHES. */
+    static Configuration navalConfiguration(Alphabet alphabet, int slots,
+                                            int pawls,
+                                            Map<String, String> notches) {
+        List<Rotor> rotors = new ArrayList<>();
+        for (String name : new String[] { "B", "C" }) {
+            rotors.add(new Reflector(name,
+                    new Permutation(NAVALA.get(name), alphabet)));
+        }
+        for (String name : new String[] { "Beta", "Gamma" }) {
+            rotors.add(new FixedRotor(name,
+                    new Permutation(NAVALA.get(name), alphabet)));
+        }
+        for (String name : NAVAL_MOVING) {
+            rotors.add(new MovingRotor(name,
+                    new Permutation(NAVALA.get(name), alphabet),
+                    notches.get(name)));
+        }
+        return new Configuration(alphabet, slots, pawls, rotors);
+    }
+
+    /** The names of the naval moving rotors. */
+    static final String[] NAVAL_MOVING = {
+        "I", "II", "III", "IV", "V", "VI", "VII", "VIII"
+    };
+
     /** The mapping of the upper-case alphabet by NAVALA. */
     static final HashMap<String, String> NAVALA_MAP = new HashMap<>();
     static {
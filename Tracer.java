@@ -0,0 +1,36 @@
+package enigma;
+
+/** Receives the path of each character through a Machine: the settings
+ *  of its rotors, the character, and the signal after the plugboard,
+ *  after each rotor, and after the plugboard again.  A Machine is given
+ *  its Tracer when it is built; signals are alphabet indices.
+ *  @author Nithish Rajan
+ */
+interface Tracer {
+
+    /** A Tracer that records nothing.  Machines built with it skip
+     *  tracing entirely. */
+    Tracer NONE = new Tracer() {
+        @Override
+        public void begin(int[] positions, int c) {
+        }
+
+        @Override
+        public void step(int c) {
+        }
+
+        @Override
+        public void end(int c) {
+        }
+    };
+
+    /** Record that a machine whose rotors have the settings POSITIONS,
+     *  indexed by slot, begins converting character C. */
+    void begin(int[] positions, int c);
+
+    /** Record that the signal is now C. */
+    void step(int c);
+
+    /** Record that the character being converted became C. */
+    void end(int c);
+}
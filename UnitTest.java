@@ -16,7 +16,16 @@ public class UnitTest {
         }
         System.exit(textui.runClasses(PermutationTest.class,
                 MovingRotorTest.class,
-                MachineTest.class));
+                MachineTest.class,
+                MessageInputTest.class,
+                MessageOutputTest.class,
+                LexerTest.class,
+                MessageBlockTest.class,
+                ServerTest.class,
+                MachineBatchTest.class,
+                StatsTest.class,
+                EventTest.class,
+                StateTableTest.class));
     }
 
 }
@@ -0,0 +1,106 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of Machine: converting single characters and whole
+ *  messages, and setting a machine up with insertRotors and setRotors.
+ *  The machines are those of NavalMachines.
+ *  @author Nithish Rajan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MachineBenchmark {
+
+    /** Number of characters in the alphabet. */
+    @Param({ "26", "104", "1040" })
+    public int size;
+
+    /** Number of slots in the machine. */
+    @Param({ "3", "5", "10" })
+    public int rotors;
+
+    /** Build the machine. */
+    @Setup
+    public void setUp() {
+        _config = NavalMachines.configuration(size, rotors);
+        _machine = NavalMachines.machine(_config);
+        _names = NavalMachines.rotorNames(rotors);
+        _setting = NavalMachines.setting(_config.alphabet(), rotors);
+        _next = 0;
+    }
+
+    /** Convert one character, advancing the rotors. */
+    @Benchmark
+    public int convertChar() {
+        _next = _next + 1 == _config.alphabet().size() ? 0 : _next + 1;
+        return _machine.convert(_next);
+    }
+
+    /** Convert the text of MESSAGE. */
+    @Benchmark
+    public String convertMessage(Message message) {
+        return _machine.convert(message.text);
+    }
+
+    /** Put the rotors back in the machine and set them. */
+    @Benchmark
+    public Machine insertAndSet() {
+        _machine.insertRotors(_names);
+        _machine.setRotors(_setting);
+        return _machine;
+    }
+
+    /** A random message, kept apart from MachineBenchmark so that only
+     *  convertMessage is run for each length. */
+    @State(Scope.Thread)
+    public static class Message {
+
+        /** Number of characters in the message. */
+        @Param({ "1024", "1048576", "104857600" })
+        public int length;
+
+        /** The message, in the alphabet of BENCH. */
+        public String text;
+
+        /** Choose the characters of the message for BENCH. */
+        @Setup
+        public void setUp(MachineBenchmark bench) {
+            text = NavalMachines.message(bench._config.alphabet(), length,
+                                         SEED);
+        }
+    }
+
+    /** Seed of the random message. */
+    private static final long SEED = 0x656E69676D61L;
+
+    /** Configuration of _machine. */
+    private Configuration _config;
+
+    /** The machine benchmarked. */
+    private Machine _machine;
+
+    /** Names of the rotors in _machine. */
+    private String[] _names;
+
+    /** Settings of the rotors in _machine. */
+    private String _setting;
+
+    /** Index of the character converted last by convertChar. */
+    private int _next;
+}
@@ -0,0 +1,122 @@
+package enigma;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of Main run on a configuration file of NavalMachines and
+ *  an input of one setting line and a short message, so that the time
+ *  is that of reading the configuration and parsing the setting.  The
+ *  parse benchmark runs Main with --no-snapshot, so that it parses the
+ *  configuration every time and never writes its compiled form;
+ *  loadCompiled reuses the compiled form written by its first run.
+ *  Main reads files in the default charset, which is set to UTF-8 so
+ *  that every alphabet can be written.
+ *  @author Nithish Rajan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class MainBenchmark {
+
+    /** Number of characters in the alphabet. */
+    @Param({ "26", "104", "1040" })
+    public int size;
+
+    /** Number of slots in the machine. */
+    @Param({ "3", "5", "10" })
+    public int rotors;
+
+    /** Write the configuration and input files. */
+    @Setup
+    public void setUp() throws IOException {
+        _dir = Files.createTempDirectory("enigma-bench");
+        _config = _dir.resolve("bench.conf");
+        _compiled = _dir.resolve("bench.conf" + CompiledConfig.SUFFIX);
+        _input = _dir.resolve("bench.in");
+        _output = _dir.resolve("bench.out");
+        Alphabet alphabet = NavalMachines.alphabet(size);
+        String[] names = NavalMachines.rotorNames(rotors);
+        String input = "* " + String.join(" ", names) + " "
+            + NavalMachines.setting(alphabet, rotors) + " "
+            + plugboard(alphabet) + "\n"
+            + NavalMachines.message(alphabet, MESSAGE_LENGTH, SEED) + "\n";
+        Files.write(_config, NavalMachines.configText(size, rotors)
+                    .getBytes(StandardCharsets.UTF_8));
+        Files.write(_input, input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Remove the files written by setUp and by Main. */
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path file : new Path[] { _config, _compiled, _input, _output }) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(_dir);
+    }
+
+    /** Run Main, parsing the configuration file. */
+    @Benchmark
+    public void parse() {
+        Main.main("--no-snapshot", _config.toString(), _input.toString(),
+                  _output.toString());
+    }
+
+    /** Run Main, loading the configuration compiled by an earlier run. */
+    @Benchmark
+    public void loadCompiled() {
+        Main.main(_config.toString(), _input.toString(), _output.toString());
+    }
+
+    /** Return a plugboard swapping the first PLUGS pairs of ALPHABET. */
+    private static String plugboard(Alphabet alphabet) {
+        StringBuilder result = new StringBuilder();
+        for (int k = 0; k < 2 * PLUGS; k += 2) {
+            result.append('(').append(alphabet.toChar(k))
+                .append(alphabet.toChar(k + 1)).append(") ");
+        }
+        return result.toString().trim();
+    }
+
+    /** Number of characters in the message after the setting line. */
+    private static final int MESSAGE_LENGTH = 64;
+
+    /** Number of pairs of characters swapped by the plugboard. */
+    private static final int PLUGS = 5;
+
+    /** Seed of the random message. */
+    private static final long SEED = 0x656E69676D61L;
+
+    /** Directory holding my files. */
+    private Path _dir;
+
+    /** Configuration file. */
+    private Path _config;
+
+    /** Compiled form of _config, written by Main. */
+    private Path _compiled;
+
+    /** Input of Main. */
+    private Path _input;
+
+    /** Output of Main. */
+    private Path _output;
+}
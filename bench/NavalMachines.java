@@ -0,0 +1,162 @@
+package enigma;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Machines built from the naval rotors of TestUtils.NAVALA for the
+ *  benchmarks, scaled to larger alphabets.  An alphabet of SIZE
+ *  characters, a multiple of 26, consists of SIZE / 26 blocks: the
+ *  upper-case letters, then runs of 26 CJK ideographs.  Each rotor wires
+ *  every block as NAVALA wires the letters.  A machine with ROTORS slots
+ *  has reflector B, fixed rotor Beta, and the first ROTORS - 2 of the
+ *  moving rotors I .. VIII.
+ *  @author Nithish Rajan
+ */
+class NavalMachines {
+
+    /** Names of the moving naval rotors, in order. */
+    static final String[] MOVING = {
+        "I", "II", "III", "IV", "V", "VI", "VII", "VIII"
+    };
+
+    /** Notches of the rotors of MOVING. */
+    static final String[] NOTCHES = {
+        "Q", "E", "V", "J", "Z", "ZM", "ZM", "ZM"
+    };
+
+    /** Largest number of slots a machine may have. */
+    static final int MAX_ROTORS = MOVING.length + 2;
+
+    /** Return the alphabet of SIZE characters. */
+    static Alphabet alphabet(int size) {
+        if (size <= 0 || size % BLOCK != 0) {
+            throw EnigmaException.error("Alphabet size not a multiple of 26.");
+        }
+        StringBuilder chars = new StringBuilder();
+        for (int k = 0; k < size; k += 1) {
+            chars.append(symbol(k));
+        }
+        return new Alphabet(chars.toString());
+    }
+
+    /** Return the names of the rotors of a machine with ROTORS slots,
+     *  reflector first. */
+    static String[] rotorNames(int rotors) {
+        if (rotors < 2 || rotors > MAX_ROTORS) {
+            throw EnigmaException.error("Wrong number of rotors.");
+        }
+        String[] names = new String[rotors];
+        names[0] = "B";
+        names[1] = "Beta";
+        System.arraycopy(MOVING, 0, names, 2, rotors - 2);
+        return names;
+    }
+
+    /** Return the configuration of machines with ROTORS slots over the
+     *  alphabet of SIZE characters, holding every rotor of rotorNames. */
+    static Configuration configuration(int size, int rotors) {
+        Alphabet alphabet = alphabet(size);
+        List<Rotor> all = new ArrayList<>();
+        all.add(new Reflector("B",
+                              new Permutation(cycles("B", size), alphabet)));
+        all.add(new FixedRotor("Beta",
+                               new Permutation(cycles("Beta", size),
+                                               alphabet)));
+        for (int k = 0; k < rotors - 2; k += 1) {
+            all.add(new MovingRotor(MOVING[k],
+                                    new Permutation(cycles(MOVING[k], size),
+                                                    alphabet),
+                                    NOTCHES[k]));
+        }
+        return new Configuration(alphabet, rotors, rotors - 2, all);
+    }
+
+    /** Return a machine of CONFIG with the rotors of rotorNames in its
+     *  slots, set as by setting(), and with an empty plugboard. */
+    static Machine machine(Configuration config) {
+        Machine machine = new Machine(config);
+        machine.insertRotors(rotorNames(config.numRotors()));
+        machine.setRotors(setting(config.alphabet(), config.numRotors()));
+        machine.setPlugboard(new Permutation("", config.alphabet()));
+        return machine;
+    }
+
+    /** Return the settings of the non-reflector rotors of a machine with
+     *  ROTORS slots over ALPHABET. */
+    static String setting(Alphabet alphabet, int rotors) {
+        StringBuilder result = new StringBuilder();
+        for (int k = 1; k < rotors; k += 1) {
+            result.append(alphabet.toChar((k * SETTING_STRIDE)
+                                          % alphabet.size()));
+        }
+        return result.toString();
+    }
+
+    /** Return the text of a configuration file describing the
+     *  configuration returned by configuration(SIZE, ROTORS). */
+    static String configText(int size, int rotors) {
+        StringBuilder result = new StringBuilder();
+        result.append(alphabet(size).chars()).append('\n');
+        result.append(rotors).append(' ').append(rotors - 2).append('\n');
+        String[] names = rotorNames(rotors);
+        for (int k = 0; k < rotors; k += 1) {
+            String kind = k == 0 ? "R" : k == 1 ? "N" : "M" + NOTCHES[k - 2];
+            result.append(names[k]).append(' ').append(kind).append(' ')
+                .append(cycles(names[k], size)).append('\n');
+        }
+        return result.toString();
+    }
+
+    /** Return a message of LENGTH characters of ALPHABET, chosen at
+     *  random from SEED. */
+    static String message(Alphabet alphabet, int length, long seed) {
+        return new String(symbols(alphabet, length, seed));
+    }
+
+    /** Return LENGTH characters of ALPHABET, chosen at random from SEED. */
+    static char[] symbols(Alphabet alphabet, int length, long seed) {
+        Random random = new Random(seed);
+        char[] result = new char[length];
+        for (int k = 0; k < length; k += 1) {
+            result[k] = alphabet.toChar(random.nextInt(alphabet.size()));
+        }
+        return result;
+    }
+
+    /** Return the cycles of the naval rotor NAME on every block of an
+     *  alphabet of SIZE characters. */
+    static String cycles(String name, int size) {
+        String letters = TestUtils.NAVALA.get(name);
+        StringBuilder result = new StringBuilder();
+        for (int b = 0; b < size; b += BLOCK) {
+            for (int k = 0; k < letters.length(); k += 1) {
+                char c = letters.charAt(k);
+                if (c >= 'A' && c <= 'Z') {
+                    c = symbol(b + c - 'A');
+                }
+                result.append(c);
+            }
+            result.append(' ');
+        }
+        return result.toString();
+    }
+
+    /** Return character number K of the alphabets. */
+    private static char symbol(int k) {
+        if (k < BLOCK) {
+            return (char) ('A' + k);
+        }
+        return (char) (IDEOGRAPHS + k - BLOCK);
+    }
+
+    /** Number of characters in a block. */
+    private static final int BLOCK = 26;
+
+    /** First character of the blocks after the upper-case letters. */
+    private static final char IDEOGRAPHS = '\u4e00';
+
+    /** Distance in the alphabet between the settings of adjacent
+     *  slots. */
+    private static final int SETTING_STRIDE = 7;
+}
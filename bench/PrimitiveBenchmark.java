@@ -0,0 +1,137 @@
+package enigma;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks of the per-character operations that Machine is built
+ *  from: Alphabet.toInt, Permutation.permute and invert, and
+ *  Rotor.convertForward and convertBackward, given the offset of the
+ *  rotor (its setting less its ring setting) as Machine gives it.  Each
+ *  benchmark applies its operation to each of SYMBOLS random characters,
+ *  so scores are per character.
+ *  @author Nithish Rajan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveBenchmark {
+
+    /** Number of characters in the alphabet. */
+    @Param({ "26", "104", "1040" })
+    public int size;
+
+    /** Build the alphabet and rotor, and choose the characters. */
+    @Setup
+    public void setUp() {
+        Configuration config = NavalMachines.configuration(size, 3);
+        _alphabet = config.alphabet();
+        _rotor = config.rotor("I");
+        _permutation = _rotor.permutation();
+        _chars = NavalMachines.symbols(_alphabet, SYMBOLS, SEED);
+        _indices = new int[SYMBOLS];
+        for (int k = 0; k < SYMBOLS; k += 1) {
+            _indices[k] = _alphabet.toInt(_chars[k]);
+        }
+        _offsets = new int[SYMBOLS];
+        for (int k = 0; k < SYMBOLS; k += 1) {
+            _offsets[k] = _indices[(k + 1) % SYMBOLS];
+        }
+    }
+
+    /** Look up the index of each character. */
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public int toInt() {
+        int sum = 0;
+        for (char c : _chars) {
+            sum += _alphabet.toInt(c);
+        }
+        return sum;
+    }
+
+    /** Permute each index by the wiring of rotor I. */
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public int permute() {
+        int sum = 0;
+        for (int p : _indices) {
+            sum += _permutation.permute(p);
+        }
+        return sum;
+    }
+
+    /** Invert each index by the wiring of rotor I. */
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public int invert() {
+        int sum = 0;
+        for (int p : _indices) {
+            sum += _permutation.invert(p);
+        }
+        return sum;
+    }
+
+    /** Pass each index forward through rotor I at the corresponding
+     *  offset of _offsets. */
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public int convertForward() {
+        int sum = 0;
+        for (int k = 0; k < SYMBOLS; k += 1) {
+            sum += _rotor.convertForward(_indices[k], _offsets[k]);
+        }
+        return sum;
+    }
+
+    /** Pass each index backward through rotor I at the corresponding
+     *  offset of _offsets. */
+    @Benchmark
+    @OperationsPerInvocation(SYMBOLS)
+    public int convertBackward() {
+        int sum = 0;
+        for (int k = 0; k < SYMBOLS; k += 1) {
+            sum += _rotor.convertBackward(_indices[k], _offsets[k]);
+        }
+        return sum;
+    }
+
+    /** Number of characters converted per invocation. */
+    private static final int SYMBOLS = 1024;
+
+    /** Seed of the random characters. */
+    private static final long SEED = 0x656E69676D61L;
+
+    /** Alphabet of the machine. */
+    private Alphabet _alphabet;
+
+    /** Naval rotor I. */
+    private Rotor _rotor;
+
+    /** Permutation of _rotor. */
+    private Permutation _permutation;
+
+    /** Random characters of _alphabet. */
+    private char[] _chars;
+
+    /** The indices of _chars. */
+    private int[] _indices;
+
+    /** Offsets of _rotor at which to convert _indices: the same random
+     *  indices, rotated by one. */
+    private int[] _offsets;
+}
@@ -0,0 +1,220 @@
+package enigma;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static enigma.EnigmaException.*;
+
+/** Measures Main end to end on a configuration and input file, such as
+ *  those written by Workload.  Main is run once to warm up and then a
+ *  number of times, writing to a scratch file, and the harness reports
+ *  input megabytes and message lines converted per second, the latency
+ *  of setting up a machine from each setting line of the input, and the
+ *  peak heap used.  Setting lines are timed by replaying them through a
+ *  SettingParser, since Main does not time its own steps.
+ *  @author Nithish Rajan
+ */
+class Throughput {
+
+    /** Measure Main as specified by ARGS: [OPTIONS] CONFIG INPUT [RUNS],
+     *  where OPTIONS (those arguments beginning with "--") are passed on
+     *  to Main and RUNS, by default DEFAULT_RUNS, is the number of timed
+     *  runs.  --bytes and --serve are rejected, since their input has no
+     *  setting lines to time. */
+    public static void main(String... args) {
+        try {
+            List<String> options = new ArrayList<>();
+            List<String> files = new ArrayList<>();
+            for (String arg : args) {
+                if (arg.startsWith("--bytes") || arg.startsWith("--serve")) {
+                    throw error("%s is not supported: setting lines are "
+                                + "timed from the input", arg);
+                }
+                (arg.startsWith("--") ? options : files).add(arg);
+            }
+            if (files.size() < 2 || files.size() > 3) {
+                throw error("Usage: java enigma.Throughput [OPTIONS] "
+                            + "CONFIG INPUT [RUNS]");
+            }
+            int runs;
+            try {
+                runs = files.size() > 2 ? Integer.parseInt(files.get(2))
+                    : DEFAULT_RUNS;
+            } catch (NumberFormatException excp) {
+                throw error("bad number of runs: %s", files.get(2));
+            }
+            new Throughput(options, files.get(0), files.get(1)).report(runs);
+            return;
+        } catch (IOException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** A harness running Main with OPTIONS on configuration file CONFIG
+     *  and input file INPUT. */
+    Throughput(List<String> options, String config, String input)
+        throws IOException {
+        _config = config;
+        _input = input;
+        _output = Files.createTempFile("enigma-throughput", ".out");
+        _args = new ArrayList<>(options);
+        _args.add(config);
+        _args.add(input);
+        _args.add(_output.toString());
+        _bytes = Files.size(Paths.get(input));
+    }
+
+    /** Run Main once and then RUNS more times, and print the
+     *  measurements to the standard output. */
+    void report(int runs) throws IOException {
+        try {
+            run();
+            long[] times = new long[runs];
+            long peak = 0;
+            for (int r = 0; r < runs; r += 1) {
+                resetPeaks();
+                long start = System.nanoTime();
+                run();
+                times[r] = System.nanoTime() - start;
+                peak = Math.max(peak, peakHeap());
+            }
+            Arrays.sort(times);
+            long[] setUps = timeSettings();
+            double median = times[runs / 2] / SECOND;
+            System.out.printf("input:     %.1f MB, %d setting lines, "
+                              + "%d message lines%n",
+                              _bytes / MEGABYTE, setUps.length, _messages);
+            System.out.printf("runs:      %d, median %.3f s, best %.3f s%n",
+                              runs, median, times[0] / SECOND);
+            System.out.printf("rate:      %.1f MB/s, %.0f messages/s%n",
+                              _bytes / MEGABYTE / median,
+                              _messages / median);
+            System.out.printf("setting:   median %.1f us, 99%% %.1f us, "
+                              + "max %.1f us%n",
+                              percentile(setUps, 50) / MICROSECOND,
+                              percentile(setUps, 99) / MICROSECOND,
+                              percentile(setUps, 100) / MICROSECOND);
+            System.out.printf("peak heap: %.1f MB%n", peak / MEGABYTE);
+        } finally {
+            Files.deleteIfExists(_output);
+        }
+    }
+
+    /** Run Main on my files. */
+    private void run() {
+        Main.main(_args.toArray(new String[0]));
+    }
+
+    /** Set up a machine from each setting line of my input in turn,
+     *  returning the times taken in nanoseconds, sorted, and counting the
+     *  non-blank message lines in _messages. */
+    private long[] timeSettings() throws IOException {
+        Configuration config = Main.parseConfig(_config);
+        SettingParser parser = new SettingParser(config, _input);
+        Machine machine = new Machine(config);
+        long[] times = new long[INITIAL_SETTINGS];
+        int count = 0;
+        _messages = 0;
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(_input))) {
+            int lineNumber = 0;
+            for (String line = in.readLine(); line != null;
+                 line = in.readLine()) {
+                lineNumber += 1;
+                String text = line.trim();
+                if (text.isEmpty()) {
+                    continue;
+                } else if (text.charAt(0) != '*') {
+                    _messages += 1;
+                    continue;
+                }
+                char[] chars = line.toCharArray();
+                long start = System.nanoTime();
+                parser.setUp(machine, chars, 0, chars.length, lineNumber);
+                long time = System.nanoTime() - start;
+                if (count == times.length) {
+                    times = Arrays.copyOf(times, 2 * count);
+                }
+                times[count] = time;
+                count += 1;
+            }
+        }
+        times = Arrays.copyOf(times, count);
+        Arrays.sort(times);
+        return times;
+    }
+
+    /** Return the P-th percentile of SORTED, or 0 if it is empty. */
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int k = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+        return sorted[Math.max(0, k)];
+    }
+
+    /** Reset the peak usage of each heap memory pool. */
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /** Return the sum of the peak usages of the heap memory pools since
+     *  they were last reset, in bytes. */
+    private static long peakHeap() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                result += pool.getPeakUsage().getUsed();
+            }
+        }
+        return result;
+    }
+
+    /** Number of timed runs when none is given. */
+    static final int DEFAULT_RUNS = 5;
+
+    /** Initial size of the array of setting-line times. */
+    private static final int INITIAL_SETTINGS = 1024;
+
+    /** Bytes in a megabyte. */
+    private static final double MEGABYTE = 1e6;
+
+    /** Nanoseconds in a second. */
+    private static final double SECOND = 1e9;
+
+    /** Nanoseconds in a microsecond. */
+    private static final double MICROSECOND = 1e3;
+
+    /** Name of the configuration file. */
+    private final String _config;
+
+    /** Name of the input file. */
+    private final String _input;
+
+    /** Scratch file for Main's output. */
+    private final Path _output;
+
+    /** Arguments to Main. */
+    private final List<String> _args;
+
+    /** Size of the input file in bytes. */
+    private final long _bytes;
+
+    /** Number of non-blank message lines in the input. */
+    private long _messages;
+}
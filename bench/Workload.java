@@ -0,0 +1,218 @@
+package enigma;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static enigma.EnigmaException.*;
+
+/** Generates configuration and input files for measuring Main on inputs
+ *  shaped like real ones: many setting lines, each with shuffled rotors,
+ *  random settings, sometimes a ring setting, and a plugboard of random
+ *  size, followed by message lines of mostly short but occasionally very
+ *  long lines, grouped or not, with blank lines scattered among them.
+ *  The configuration is that of NavalMachines.  Everything generated is
+ *  determined by the seed, so a workload can be regenerated anywhere
+ *  instead of being stored.
+ *  @author Nithish Rajan
+ */
+class Workload {
+
+    /** Write a workload as specified by ARGS: SEED SIZE ROTORS MEGABYTES
+     *  CONFIG INPUT.  The configuration of NavalMachines for SIZE
+     *  characters and ROTORS slots is written to file CONFIG, and at
+     *  least MEGABYTES million characters of input generated from SEED are
+     *  written to file INPUT, both in the default charset. */
+    public static void main(String... args) {
+        try {
+            if (args.length != 6) {
+                throw error("Usage: java enigma.Workload SEED SIZE ROTORS "
+                            + "MEGABYTES CONFIG INPUT");
+            }
+            Workload load;
+            long chars;
+            try {
+                load = new Workload(Long.parseLong(args[0]),
+                                    Integer.parseInt(args[1]),
+                                    Integer.parseInt(args[2]));
+                chars = (long) (Double.parseDouble(args[3]) * MEGA);
+            } catch (NumberFormatException excp) {
+                throw error("bad number: %s", excp.getMessage());
+            }
+            try (Writer out = Files.newBufferedWriter(Paths.get(args[4]))) {
+                out.write(load.config());
+            }
+            try (Writer out = Files.newBufferedWriter(Paths.get(args[5]))) {
+                chars = load.writeInput(out, chars);
+            }
+            System.err.printf("Wrote %d characters of input.%n", chars);
+            return;
+        } catch (IOException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        } catch (EnigmaException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+        }
+        System.exit(1);
+    }
+
+    /** A generator of inputs from SEED for machines with ROTORS slots over
+     *  an alphabet of SIZE characters (see NavalMachines). */
+    Workload(long seed, int size, int rotors) {
+        _size = size;
+        _rotors = rotors;
+        _alphabet = NavalMachines.alphabet(size);
+        _names = NavalMachines.rotorNames(rotors);
+        _random = new Random(seed);
+        if (!Charset.defaultCharset().newEncoder()
+            .canEncode(_alphabet.chars())) {
+            throw error("alphabet cannot be written in charset %s",
+                        Charset.defaultCharset());
+        }
+    }
+
+    /** Return the text of my configuration file. */
+    String config() {
+        return NavalMachines.configText(_size, _rotors);
+    }
+
+    /** Write setting and message lines to OUT until at least CHARS
+     *  characters have been written, ending with a complete block of
+     *  messages.  Returns the number of characters written. */
+    long writeInput(Writer out, long chars) throws IOException {
+        StringBuilder line = new StringBuilder();
+        long written = 0;
+        while (written < chars || written == 0) {
+            settingLine(line);
+            int blanks = _random.nextInt(BLANKS_AFTER_SETTING + 1);
+            for (int k = 0; k < blanks; k += 1) {
+                line.append('\n');
+            }
+            int messages = 1 + _random.nextInt(MAX_MESSAGES);
+            for (int m = 0; m < messages; m += 1) {
+                if (m > 0 && _random.nextInt(BLANK_ODDS) == 0) {
+                    line.append('\n');
+                }
+                messageLine(line);
+            }
+            out.append(line);
+            written += line.length();
+            line.setLength(0);
+        }
+        return written;
+    }
+
+    /** Append to LINE a setting line and its newline. */
+    private void settingLine(StringBuilder line) {
+        line.append("* ").append(_names[0]).append(' ').append(_names[1]);
+        String[] moving = _names.clone();
+        for (int k = moving.length - 1; k > 2; k -= 1) {
+            int j = 2 + _random.nextInt(k - 1);
+            String name = moving[k];
+            moving[k] = moving[j];
+            moving[j] = name;
+        }
+        for (int k = 2; k < moving.length; k += 1) {
+            line.append(' ').append(moving[k]);
+        }
+        line.append(' ');
+        symbols(line, _rotors - 1);
+        if (_rotors - 1 == RING_LENGTH && _random.nextBoolean()) {
+            line.append(' ');
+            symbols(line, RING_LENGTH);
+        }
+        int pairs = _random.nextInt(Math.min(MAX_PLUGS, _size / 2) + 1);
+        boolean[] used = new boolean[_size];
+        for (int k = 0; k < pairs; k += 1) {
+            line.append(" (").append(unused(used)).append(unused(used))
+                .append(')');
+        }
+        line.append('\n');
+    }
+
+    /** Append to LINE a message line and its newline: usually short, but
+     *  one in LONG_ODDS up to LONG_LINE characters, and either grouped in
+     *  fives or not. */
+    private void messageLine(StringBuilder line) {
+        int length;
+        if (_random.nextInt(LONG_ODDS) == 0) {
+            length = 1 + _random.nextInt(LONG_LINE);
+        } else {
+            length = 1 + _random.nextInt(SHORT_LINE);
+        }
+        boolean grouped = _random.nextBoolean();
+        for (int k = 0; k < length; k += 1) {
+            if (grouped && k > 0 && k % GROUP == 0) {
+                line.append(' ');
+            }
+            symbols(line, 1);
+        }
+        line.append('\n');
+    }
+
+    /** Append COUNT random characters of my alphabet to LINE. */
+    private void symbols(StringBuilder line, int count) {
+        for (int k = 0; k < count; k += 1) {
+            line.append(_alphabet.toChar(_random.nextInt(_size)));
+        }
+    }
+
+    /** Return a random character of my alphabet whose index is not marked
+     *  in USED, and mark it. */
+    private char unused(boolean[] used) {
+        int c;
+        do {
+            c = _random.nextInt(_size);
+        } while (used[c]);
+        used[c] = true;
+        return _alphabet.toChar(c);
+    }
+
+    /** Characters in a megabyte of input. */
+    private static final int MEGA = 1_000_000;
+
+    /** Number of characters in a ring setting (see SettingParser). */
+    private static final int RING_LENGTH = 4;
+
+    /** Most plugboard pairs on a setting line. */
+    private static final int MAX_PLUGS = 13;
+
+    /** Most blank lines following a setting line. */
+    private static final int BLANKS_AFTER_SETTING = 2;
+
+    /** Most message lines following a setting line. */
+    private static final int MAX_MESSAGES = 40;
+
+    /** One message line in BLANK_ODDS is preceded by a blank line. */
+    private static final int BLANK_ODDS = 10;
+
+    /** One message line in LONG_ODDS is long. */
+    private static final int LONG_ODDS = 50;
+
+    /** Longest short message line, not counting blanks. */
+    private static final int SHORT_LINE = 80;
+
+    /** Longest long message line, not counting blanks. */
+    private static final int LONG_LINE = 1 << 16;
+
+    /** Characters in a group of a grouped message line. */
+    private static final int GROUP = 5;
+
+    /** Number of characters in the alphabet. */
+    private final int _size;
+
+    /** Number of slots in the machines. */
+    private final int _rotors;
+
+    /** The alphabet. */
+    private final Alphabet _alphabet;
+
+    /** Names of the rotors of the machines, reflector first. */
+    private final String[] _names;
+
+    /** Source of every random choice. */
+    private final Random _random;
+}
@@ -0,0 +1,49 @@
+package enigma;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/** A BatchKernel that handles a vector of lanes at a time with the
+ *  (incubating) Vector API: the table indices of the lanes are computed
+ *  lanewise, and their images gathered from the rotor tables by one
+ *  indexed load.  Lanes left over at the end of a block are handled one
+ *  at a time.  This class is compiled only by "make vector", with
+ *  --add-modules jdk.incubator.vector, and used only when that module is
+ *  present at run time (see BatchKernel.create).
+ *  @author Nithish Rajan
+ */
+class VectorKernel implements BatchKernel {
+
+    @Override
+    public void pass(int[] tables, int[] posns, int[] rings, int[] bases,
+                     int size, int[] signal, int lo, int hi) {
+        int[] index = _index;
+        int l = lo;
+        for (int bound = lo + SPECIES.loopBound(hi - lo); l < bound;
+             l += SPECIES.length()) {
+            IntVector d = IntVector.fromArray(SPECIES, posns, l)
+                .sub(IntVector.fromArray(SPECIES, rings, l));
+            d = d.add(size, d.lt(0));
+            IntVector.fromArray(SPECIES, bases, l)
+                .add(d.mul(size))
+                .add(IntVector.fromArray(SPECIES, signal, l - lo))
+                .intoArray(index, 0);
+            IntVector.fromArray(SPECIES, tables, 0, index, 0)
+                .intoArray(signal, l - lo);
+        }
+        for (; l < hi; l += 1) {
+            int d = posns[l] - rings[l];
+            if (d < 0) {
+                d += size;
+            }
+            signal[l - lo] = tables[bases[l] + d * size + signal[l - lo]];
+        }
+    }
+
+    /** The widest vectors of ints the processor handles well. */
+    private static final VectorSpecies<Integer> SPECIES =
+        IntVector.SPECIES_PREFERRED;
+
+    /** Table indices of the lanes of the vector being gathered. */
+    private final int[] _index = new int[SPECIES.length()];
+}